@@ -0,0 +1,248 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.brave;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import zipkin2.Call;
+import zipkin2.Callback;
+import zipkin2.CheckResult;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.Sender;
+
+/**
+ * Implementation of the {@link Sender} that stores the encoded spans into a {@link SpanRingBuffer}
+ * and sends them with the delegate {@code Sender} from a single exporter thread, so an export
+ * backlog is kept outside of the Java heap.
+ *
+ * <p>The spans are already encoded in the format of the delegate, they are copied as is. The
+ * {@code AsyncReporter} in front of this sender only holds the spans until its next flush, sending
+ * them to the ring buffer does not wait for the export.
+ */
+final class OffHeapSender extends Sender {
+
+  private static final Logger logger = Logger.getLogger(OffHeapSender.class.getName());
+  private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long MIN_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(10);
+  private static final long DROPPED_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+  private static final int MAX_BATCH_SPANS = 1000;
+  // A batch is dropped after this many failed attempts (~30s with the backoff), so an error that
+  // is not transient (e.g. invalid request or permission denied) does not stall the export.
+  private static final int MAX_SEND_ATTEMPTS = 10;
+
+  private final SpanRingBuffer ringBuffer;
+  private final Sender delegate;
+  private final Thread exporterThread;
+  private volatile boolean closed;
+
+  // Records polled from the ring buffer that did not fit in the last message, used only by the
+  // exporter thread (or by close() once the exporter thread stopped).
+  private final ArrayDeque<byte[]> pending = new ArrayDeque<>();
+  private long loggedDropped;
+  private long lastDroppedLogNanos = System.nanoTime();
+
+  OffHeapSender(SpanRingBuffer ringBuffer, Sender delegate) {
+    this.ringBuffer = ringBuffer;
+    this.delegate = delegate;
+    this.exporterThread = new Thread(this::export, "opencensus-brave-span-exporter");
+    this.exporterThread.setDaemon(true);
+    this.exporterThread.start();
+  }
+
+  @Override
+  public Encoding encoding() {
+    return delegate.encoding();
+  }
+
+  @Override
+  public int messageMaxBytes() {
+    return delegate.messageMaxBytes();
+  }
+
+  @Override
+  public int messageSizeInBytes(List<byte[]> encodedSpans) {
+    return delegate.messageSizeInBytes(encodedSpans);
+  }
+
+  @Override
+  public Call<Void> sendSpans(List<byte[]> encodedSpans) {
+    if (closed) {
+      throw new IllegalStateException("closed");
+    }
+    return new OfferCall(encodedSpans);
+  }
+
+  @Override
+  public CheckResult check() {
+    return delegate.check();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    exporterThread.interrupt();
+    try {
+      exporterThread.join(TimeUnit.SECONDS.toMillis(1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      if (!exporterThread.isAlive()) {
+        // Best effort to send the remaining spans, without retries.
+        List<byte[]> batch = new ArrayList<>();
+        while (fill(batch)) {
+          send(batch);
+          batch.clear();
+        }
+        logDropped();
+      }
+      delegate.close();
+    } finally {
+      ringBuffer.close();
+    }
+  }
+
+  private void export() {
+    List<byte[]> batch = new ArrayList<>();
+    long backoffNanos = MIN_BACKOFF_NANOS;
+    int attempts = 0;
+    while (!closed) {
+      if (System.nanoTime() - lastDroppedLogNanos >= DROPPED_LOG_INTERVAL_NANOS) {
+        logDropped();
+      }
+      if (batch.isEmpty() && !fill(batch)) {
+        LockSupport.parkNanos(this, IDLE_NANOS);
+        continue;
+      }
+      attempts++;
+      if (send(batch)) {
+        batch.clear();
+        attempts = 0;
+        backoffNanos = MIN_BACKOFF_NANOS;
+      } else if (attempts >= MAX_SEND_ATTEMPTS) {
+        logger.warning("Dropping " + batch.size() + " spans after " + attempts + " attempts.");
+        ringBuffer.addDropped(batch.size());
+        batch.clear();
+        attempts = 0;
+        backoffNanos = MIN_BACKOFF_NANOS;
+      } else {
+        // Keeps the batch and retries it once the backoff elapsed.
+        LockSupport.parkNanos(this, backoffNanos);
+        backoffNanos = Math.min(2 * backoffNanos, MAX_BACKOFF_NANOS);
+      }
+    }
+    // Hands the unsent spans over to close().
+    for (int i = batch.size() - 1; i >= 0; i--) {
+      pending.addFirst(batch.get(i));
+    }
+  }
+
+  // Moves the next records into the batch, up to the maximum message size of the delegate. Returns
+  // false if there was nothing to send.
+  private boolean fill(List<byte[]> batch) {
+    int maxBytes = delegate.messageMaxBytes();
+    int bytes = 0;
+    while (batch.size() < MAX_BATCH_SPANS) {
+      byte[] record = pending.isEmpty() ? ringBuffer.poll() : pending.poll();
+      if (record == null) {
+        break;
+      }
+      if (bytes + record.length > maxBytes && !batch.isEmpty()) {
+        pending.addFirst(record);
+        break;
+      }
+      batch.add(record);
+      bytes += record.length;
+    }
+    // The message also contains the framing of the list of spans.
+    while (!batch.isEmpty() && delegate.messageSizeInBytes(batch) > maxBytes) {
+      if (batch.size() == 1) {
+        logger.warning("Dropping a span larger than the maximum message size.");
+        batch.clear();
+        return fill(batch);
+      }
+      pending.addFirst(batch.remove(batch.size() - 1));
+    }
+    return !batch.isEmpty();
+  }
+
+  private boolean send(List<byte[]> batch) {
+    try {
+      delegate.sendSpans(batch).execute();
+      return true;
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING, "Failed to send " + batch.size() + " spans.", e);
+      return false;
+    }
+  }
+
+  private void logDropped() {
+    lastDroppedLogNanos = System.nanoTime();
+    long dropped = ringBuffer.getDropped();
+    if (dropped > loggedDropped) {
+      logger.warning("Span queue dropped " + (dropped - loggedDropped) + " spans ("
+          + dropped + " in total).");
+      loggedDropped = dropped;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "OffHeapSender{" + delegate + "}";
+  }
+
+  private final class OfferCall extends Call.Base<Void> {
+
+    private final List<byte[]> encodedSpans;
+
+    private OfferCall(List<byte[]> encodedSpans) {
+      this.encodedSpans = encodedSpans;
+    }
+
+    @Override
+    protected Void doExecute() {
+      for (byte[] encodedSpan : encodedSpans) {
+        ringBuffer.offer(encodedSpan);
+      }
+      return null;
+    }
+
+    @Override
+    protected void doEnqueue(Callback<Void> callback) {
+      try {
+        callback.onSuccess(doExecute());
+      } catch (RuntimeException | Error e) {
+        callback.onError(e);
+      }
+    }
+
+    @Override
+    public Call<Void> clone() {
+      return new OfferCall(encodedSpans);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.brave;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import zipkin2.reporter.Sender;
+
+/**
+ * {@link BeanPostProcessor} that wraps every span {@link Sender} (e.g. the Stackdriver sender)
+ * into an {@link OffHeapSender}, so the ring buffer is the only queue of the spans waiting to be
+ * exported.
+ */
+final class OffHeapSenderPostProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+  private BeanFactory beanFactory;
+  // Name of the Sender bean that mapped the span-queue.file, if any.
+  private String mappedBeanName;
+
+  @Override
+  public void setBeanFactory(BeanFactory beanFactory) {
+    this.beanFactory = beanFactory;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName)
+      throws BeansException {
+    if (!(bean instanceof Sender) || bean instanceof OffHeapSender) {
+      return bean;
+    }
+    OpenCensusBraveProperties.SpanQueue spanQueue =
+        beanFactory.getBean(OpenCensusBraveProperties.class).getSpanQueue();
+    return new OffHeapSender(createRingBuffer(spanQueue, beanName), (Sender) bean);
+  }
+
+  private SpanRingBuffer createRingBuffer(OpenCensusBraveProperties.SpanQueue spanQueue,
+      String beanName) {
+    if (spanQueue.getFile() == null) {
+      return SpanRingBuffer.allocateDirect(spanQueue.getCapacityBytes(),
+          spanQueue.getOverflowPolicy());
+    }
+    if (mappedBeanName != null) {
+      throw new IllegalStateException("spring.opencensus.brave.span-queue.file can only be used "
+          + "with a single Sender, already mapped by '" + mappedBeanName + "' and requested by '"
+          + beanName + "'.");
+    }
+    mappedBeanName = beanName;
+    try {
+      return SpanRingBuffer.map(Paths.get(spanQueue.getFile()), spanQueue.getCapacityBytes(),
+          spanQueue.getOverflowPolicy());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -17,10 +17,14 @@
 package io.opencensus.spring.brave;
 
 import brave.propagation.CurrentTraceContext;
+import brave.propagation.ExtraFieldPropagation;
+import brave.propagation.Propagation;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.sleuth.autoconfig.SleuthProperties;
 import org.springframework.cloud.sleuth.autoconfig.TraceAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -38,9 +42,42 @@ import org.springframework.context.annotation.Role;
 @EnableConfigurationProperties(OpenCensusBraveProperties.class)
 public class OpenCensusBraveAutoConfiguration {
 
+  // Same prefix as Sleuth uses for the baggage keys.
+  private static final String BAGGAGE_PREFIX = "baggage-";
+
+  @Bean
+  @Primary
+  CurrentTraceContext openCensusCurrentTraceContext(OpenCensusBraveProperties properties) {
+    return OpenCensusBraveCurrentTraceContext.create(properties);
+  }
+
+  /**
+   * Replaces Sleuth's {@code sleuthPropagation}, so the baggage and propagation keys configured in
+   * {@link SleuthProperties} are propagated next to the {@code traceparent} header the same way.
+   */
   @Bean
   @Primary
-  CurrentTraceContext openCensusCurrentTraceContext() {
-    return OpenCensusBraveCurrentTraceContext.create();
+  @ConditionalOnProperty(name = "spring.opencensus.brave.propagation", havingValue = "traceparent")
+  Propagation.Factory traceparentPropagationFactory(SleuthProperties sleuthProperties) {
+    if (sleuthProperties.getBaggageKeys().isEmpty()
+        && sleuthProperties.getPropagationKeys().isEmpty()) {
+      return TraceparentPropagation.FACTORY;
+    }
+    ExtraFieldPropagation.FactoryBuilder factoryBuilder =
+        ExtraFieldPropagation.newFactoryBuilder(TraceparentPropagation.FACTORY);
+    if (!sleuthProperties.getBaggageKeys().isEmpty()) {
+      factoryBuilder =
+          factoryBuilder.addPrefixedFields(BAGGAGE_PREFIX, sleuthProperties.getBaggageKeys());
+    }
+    for (String key : sleuthProperties.getPropagationKeys()) {
+      factoryBuilder = factoryBuilder.addField(key);
+    }
+    return factoryBuilder.build();
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "spring.opencensus.brave.span-queue.enabled")
+  static BeanPostProcessor offHeapSenderPostProcessor() {
+    return new OffHeapSenderPostProcessor();
   }
 }
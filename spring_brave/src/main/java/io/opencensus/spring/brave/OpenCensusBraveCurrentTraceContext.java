@@ -18,6 +18,7 @@ package io.opencensus.spring.brave;
 
 import brave.propagation.CurrentTraceContext;
 import brave.propagation.TraceContext;
+import io.opencensus.common.Functions;
 import io.opencensus.trace.Annotation;
 import io.opencensus.trace.AttributeValue;
 import io.opencensus.trace.EndSpanOptions;
@@ -28,6 +29,7 @@ import io.opencensus.trace.SpanId;
 import io.opencensus.trace.TraceId;
 import io.opencensus.trace.TraceOptions;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Map;
 
@@ -35,17 +37,26 @@ import java.util.Map;
  * Implementation of the {@link CurrentTraceContext} that synchronize the Brave's current
  * {@link TraceContext} with the OpenCensus's current {@link Span}.
  *
- * <p>The synchronized {@code Span} is a no-op implementation that only carries the trace
- * identifiers in order to ensure trace continuation when OpenCensus is used to create new spans.
+ * <p>The synchronized {@code Span} carries the trace identifiers in order to ensure trace
+ * continuation when OpenCensus is used to create new spans. Annotations and attributes added to it
+ * are buffered (up to the limits configured in {@link OpenCensusBraveProperties}) and forwarded to
+ * the Brave span once, when the scope is closed; events added after that are forwarded directly.
+ * Every thread keeps the buffer of the last closed scope to reuse it for the next scope, so the
+ * buffers are not allocated for every scope.
  */
 public final class OpenCensusBraveCurrentTraceContext extends CurrentTraceContext {
 
   private static final io.opencensus.trace.Tracer tracer = io.opencensus.trace.Tracing.getTracer();
 
   private final CurrentTraceContext delegate;
+  private final int maxAnnotations;
+  private final int maxAttributes;
+  // Buffer released by the last scope closed on this thread, null if none or already in use.
+  private final ThreadLocal<EventBuffer> cachedBuffer = new ThreadLocal<>();
 
-  static OpenCensusBraveCurrentTraceContext create() {
-    return new OpenCensusBraveCurrentTraceContext(Default.create());
+  static OpenCensusBraveCurrentTraceContext create(OpenCensusBraveProperties properties) {
+    return new OpenCensusBraveCurrentTraceContext(Default.create(),
+        properties.getMaxAnnotations(), properties.getMaxAttributes());
   }
 
   @Override
@@ -56,7 +67,8 @@ public final class OpenCensusBraveCurrentTraceContext extends CurrentTraceContex
   @Override
   public Scope newScope(final TraceContext traceContext) {
     final Scope scope = delegate.newScope(traceContext);
-    final Span span = new BraveOpenCensusSpan(traceContext);
+    final BraveOpenCensusSpan span =
+        new BraveOpenCensusSpan(traceContext, this);
     final io.opencensus.common.Scope openCensusScope = tracer.withSpan(span);
 
     class OpenCensusBraveCurrentTraceContextScope implements Scope {
@@ -67,14 +79,34 @@ public final class OpenCensusBraveCurrentTraceContext extends CurrentTraceContex
       public void close() {
         scope.close();
         openCensusScope.close();
+        span.flush();
       }
     }
 
     return new OpenCensusBraveCurrentTraceContextScope();
   }
 
-  private OpenCensusBraveCurrentTraceContext(CurrentTraceContext delegate) {
+  private OpenCensusBraveCurrentTraceContext(CurrentTraceContext delegate, int maxAnnotations,
+      int maxAttributes) {
     this.delegate = delegate;
+    this.maxAnnotations = maxAnnotations;
+    this.maxAttributes = maxAttributes;
+  }
+
+  private EventBuffer borrowBuffer() {
+    EventBuffer buffer = cachedBuffer.get();
+    if (buffer == null) {
+      return new EventBuffer(maxAnnotations, maxAttributes);
+    }
+    cachedBuffer.set(null);
+    return buffer;
+  }
+
+  private void releaseBuffer(EventBuffer buffer) {
+    buffer.clear();
+    if (cachedBuffer.get() == null) {
+      cachedBuffer.set(buffer);
+    }
   }
 
   private static class BraveOpenCensusSpan extends Span {
@@ -87,29 +119,145 @@ public final class OpenCensusBraveCurrentTraceContext extends CurrentTraceContex
     private static final TraceOptions notSampledOptions = TraceOptions.builder().setIsSampled(false)
         .build();
 
-    BraveOpenCensusSpan(TraceContext traceContext) {
+    private final TraceContext traceContext;
+    private final OpenCensusBraveCurrentTraceContext currentTraceContext;
+
+    // Borrowed on first use and released on flush, guarded by "this".
+    private EventBuffer buffer;
+    // Set once the scope is closed, the events added later (e.g. by a thread that captured this
+    // span) are forwarded directly to the Brave span instead of being buffered. Guarded by "this".
+    private boolean flushed;
+
+    BraveOpenCensusSpan(TraceContext traceContext,
+        OpenCensusBraveCurrentTraceContext currentTraceContext) {
       super(fromTraceContext(traceContext),
           Boolean.TRUE.equals(traceContext.sampled()) ? recordOptions
               :
                   notRecordOptions);
+      this.traceContext = traceContext;
+      this.currentTraceContext = currentTraceContext;
     }
 
     @Override
     public void addAnnotation(String s, Map<String, AttributeValue> map) {
+      if (getOptions().contains(Options.RECORD_EVENTS)) {
+        bufferAnnotation(s, map);
+      }
     }
 
     @Override
     public void addAnnotation(Annotation annotation) {
+      if (getOptions().contains(Options.RECORD_EVENTS)) {
+        bufferAnnotation(annotation.getDescription(), annotation.getAttributes());
+      }
+    }
+
+    @Override
+    public void putAttribute(String key, AttributeValue value) {
+      if (getOptions().contains(Options.RECORD_EVENTS)) {
+        bufferAttribute(key, value);
+      }
+    }
+
+    @Override
+    public void putAttributes(Map<String, AttributeValue> attributes) {
+      if (getOptions().contains(Options.RECORD_EVENTS)) {
+        for (Map.Entry<String, AttributeValue> entry : attributes.entrySet()) {
+          bufferAttribute(entry.getKey(), entry.getValue());
+        }
+      }
     }
 
     @Override
     public void addLink(Link link) {
+      // Brave spans do not support links.
     }
 
     @Override
     public void end(EndSpanOptions endSpanOptions) {
     }
 
+    /**
+     * Forwards the buffered annotations and attributes to the Brave span and releases the buffer.
+     */
+    synchronized void flush() {
+      flushed = true;
+      EventBuffer buffer = this.buffer;
+      if (buffer == null) {
+        return;
+      }
+      this.buffer = null;
+      brave.Span braveSpan = braveSpan();
+      if (braveSpan != null) {
+        for (int i = 0; i < buffer.attributeCount; i++) {
+          braveSpan.tag(buffer.attributeKeys[i], toString(buffer.attributeValues[i]));
+        }
+        for (int i = 0; i < buffer.annotationCount; i++) {
+          braveSpan.annotate(buffer.annotationTimestamps[i],
+              toString(buffer.annotationDescriptions[i], buffer.annotationAttributes[i]));
+        }
+        if (buffer.droppedCount > 0) {
+          braveSpan.tag("opencensus.dropped", Integer.toString(buffer.droppedCount));
+        }
+      }
+      currentTraceContext.releaseBuffer(buffer);
+    }
+
+    private synchronized void bufferAnnotation(String description,
+        Map<String, AttributeValue> attributes) {
+      // Brave timestamps are in epoch microseconds.
+      long timestamp = System.currentTimeMillis() * 1000;
+      if (flushed) {
+        brave.Span braveSpan = braveSpan();
+        if (braveSpan != null) {
+          braveSpan.annotate(timestamp, toString(description, attributes));
+        }
+        return;
+      }
+      if (buffer == null) {
+        buffer = currentTraceContext.borrowBuffer();
+      }
+      buffer.addAnnotation(timestamp, description, attributes);
+    }
+
+    private synchronized void bufferAttribute(String key, AttributeValue value) {
+      if (flushed) {
+        brave.Span braveSpan = braveSpan();
+        if (braveSpan != null) {
+          braveSpan.tag(key, toString(value));
+        }
+        return;
+      }
+      if (buffer == null) {
+        buffer = currentTraceContext.borrowBuffer();
+      }
+      buffer.addAttribute(key, value);
+    }
+
+    private brave.Span braveSpan() {
+      brave.Tracing tracing = brave.Tracing.current();
+      return tracing != null ? tracing.tracer().toSpan(traceContext) : null;
+    }
+
+    private static String toString(AttributeValue value) {
+      return value.match(Functions.<String>returnToString(), Functions.<Boolean>returnToString(),
+          Functions.<Long>returnToString(), Functions.returnToString());
+    }
+
+    private static String toString(String description, Map<String, AttributeValue> attributes) {
+      if (attributes.isEmpty()) {
+        return description;
+      }
+      StringBuilder builder = new StringBuilder(description).append(" {");
+      String separator = "";
+      for (Map.Entry<String, AttributeValue> entry : attributes.entrySet()) {
+        builder.append(separator).append(entry.getKey()).append('=')
+            .append(toString(entry.getValue()));
+        separator = ", ";
+      }
+      return builder.append('}').toString();
+    }
+
     private static SpanContext fromTraceContext(TraceContext traceContext) {
       return SpanContext.create(TraceId.fromBytes(ByteBuffer.allocate(TraceId.SIZE).putLong
               (traceContext.traceIdHigh()).putLong(traceContext.traceId())
@@ -119,4 +267,61 @@ public final class OpenCensusBraveCurrentTraceContext extends CurrentTraceContex
           Boolean.TRUE.equals(traceContext.sampled()) ? sampledOptions : notSampledOptions);
     }
   }
+
+  /**
+   * Annotations and attributes buffered for a single scope.
+   */
+  private static final class EventBuffer {
+
+    private final long[] annotationTimestamps;
+    private final String[] annotationDescriptions;
+    private final Map<String, AttributeValue>[] annotationAttributes;
+    private int annotationCount;
+    private final String[] attributeKeys;
+    private final AttributeValue[] attributeValues;
+    private int attributeCount;
+    private int droppedCount;
+
+    @SuppressWarnings("unchecked")
+    private EventBuffer(int maxAnnotations, int maxAttributes) {
+      annotationTimestamps = new long[maxAnnotations];
+      annotationDescriptions = new String[maxAnnotations];
+      annotationAttributes = new Map[maxAnnotations];
+      attributeKeys = new String[maxAttributes];
+      attributeValues = new AttributeValue[maxAttributes];
+    }
+
+    private void addAnnotation(long timestamp, String description,
+        Map<String, AttributeValue> attributes) {
+      if (annotationCount == annotationTimestamps.length) {
+        droppedCount++;
+        return;
+      }
+      annotationTimestamps[annotationCount] = timestamp;
+      annotationDescriptions[annotationCount] = description;
+      annotationAttributes[annotationCount] = attributes;
+      annotationCount++;
+    }
+
+    private void addAttribute(String key, AttributeValue value) {
+      if (attributeCount == attributeKeys.length) {
+        droppedCount++;
+        return;
+      }
+      attributeKeys[attributeCount] = key;
+      attributeValues[attributeCount] = value;
+      attributeCount++;
+    }
+
+    // Clears the references so a cached buffer does not retain the events of a closed scope.
+    private void clear() {
+      Arrays.fill(annotationDescriptions, 0, annotationCount, null);
+      Arrays.fill(annotationAttributes, 0, annotationCount, null);
+      Arrays.fill(attributeKeys, 0, attributeCount, null);
+      Arrays.fill(attributeValues, 0, attributeCount, null);
+      annotationCount = 0;
+      attributeCount = 0;
+      droppedCount = 0;
+    }
+  }
 }
@@ -16,16 +16,27 @@
 
 package io.opencensus.spring.brave;
 
+import javax.validation.constraints.Min;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
 
 /**
  * Sleuth annotation settings
  */
 @ConfigurationProperties("spring.opencensus.brave")
+@Validated
 public class OpenCensusBraveProperties {
 
   private boolean enabled = true;
 
+  @Min(0)
+  private int maxAnnotations = 32;
+
+  @Min(0)
+  private int maxAttributes = 32;
+
+  private final SpanQueue spanQueue = new SpanQueue();
+
   public boolean isEnabled() {
     return this.enabled;
   }
@@ -33,4 +44,93 @@ public class OpenCensusBraveProperties {
   public void setEnabled(boolean enabled) {
     this.enabled = enabled;
   }
+
+  /**
+   * Returns the maximum number of OpenCensus annotations forwarded to a Brave span per scope.
+   */
+  public int getMaxAnnotations() {
+    return this.maxAnnotations;
+  }
+
+  public void setMaxAnnotations(int maxAnnotations) {
+    this.maxAnnotations = maxAnnotations;
+  }
+
+  /**
+   * Returns the maximum number of OpenCensus attributes forwarded to a Brave span per scope.
+   */
+  public int getMaxAttributes() {
+    return this.maxAttributes;
+  }
+
+  public void setMaxAttributes(int maxAttributes) {
+    this.maxAttributes = maxAttributes;
+  }
+
+  public SpanQueue getSpanQueue() {
+    return this.spanQueue;
+  }
+
+  /**
+   * Off-heap queue of the finished spans waiting to be exported.
+   */
+  public static class SpanQueue {
+
+    private boolean enabled = false;
+
+    private int capacityBytes = 16 * 1024 * 1024;
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.OVERWRITE_OLDEST;
+
+    private String file;
+
+    public boolean isEnabled() {
+      return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getCapacityBytes() {
+      return this.capacityBytes;
+    }
+
+    public void setCapacityBytes(int capacityBytes) {
+      this.capacityBytes = capacityBytes;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+      return this.overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+      this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Returns the file memory-mapped to store the queue, or {@code null} to use direct memory.
+     */
+    public String getFile() {
+      return this.file;
+    }
+
+    public void setFile(String file) {
+      this.file = file;
+    }
+
+    /**
+     * What to do with a new span when the queue is full.
+     */
+    public enum OverflowPolicy {
+      /**
+       * Evicts the oldest spans to make room for the new span.
+       */
+      OVERWRITE_OLDEST,
+      /**
+       * Drops the new span.
+       */
+      DROP_NEWEST
+    }
+  }
 }
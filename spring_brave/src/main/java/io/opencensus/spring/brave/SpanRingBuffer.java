@@ -0,0 +1,178 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.brave;
+
+import io.opencensus.spring.brave.OpenCensusBraveProperties.SpanQueue.OverflowPolicy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed-size ring buffer of length-prefixed records stored outside of the Java heap, either in a
+ * direct {@link ByteBuffer} or in a memory-mapped file.
+ *
+ * <p>When the buffer is full a new record either evicts the oldest records or is dropped,
+ * depending on the {@link OverflowPolicy}. The content of the buffer does not survive a restart.
+ */
+final class SpanRingBuffer implements Closeable {
+
+  private static final int LENGTH_SIZE = Integer.BYTES;
+
+  private final ByteBuffer buffer;
+  private final int capacity;
+  private final OverflowPolicy overflowPolicy;
+  private final FileChannel channel;
+
+  // Scratch buffer used to read and write the record lengths, guarded by "this".
+  private final byte[] lengthBytes = new byte[LENGTH_SIZE];
+  // Absolute read and write positions, guarded by "this".
+  private long head;
+  private long tail;
+  private long dropped;
+
+  private SpanRingBuffer(ByteBuffer buffer, OverflowPolicy overflowPolicy, FileChannel channel) {
+    this.buffer = buffer;
+    this.capacity = buffer.capacity();
+    this.overflowPolicy = overflowPolicy;
+    this.channel = channel;
+  }
+
+  /**
+   * Creates a ring buffer backed by a direct {@code ByteBuffer}.
+   */
+  static SpanRingBuffer allocateDirect(int capacity, OverflowPolicy overflowPolicy) {
+    return new SpanRingBuffer(ByteBuffer.allocateDirect(capacity), overflowPolicy, null);
+  }
+
+  /**
+   * Creates a ring buffer backed by a memory-mapped file, the file is created if needed.
+   */
+  static SpanRingBuffer map(Path file, int capacity, OverflowPolicy overflowPolicy)
+      throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      return new SpanRingBuffer(channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity),
+          overflowPolicy, channel);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Adds a record to the buffer.
+   *
+   * @param record the record to add.
+   * @return {@code false} if the record was dropped.
+   */
+  synchronized boolean offer(byte[] record) {
+    int needed = LENGTH_SIZE + record.length;
+    if (needed > capacity) {
+      dropped++;
+      return false;
+    }
+    while (capacity - (tail - head) < needed) {
+      if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+        dropped++;
+        return false;
+      }
+      head += LENGTH_SIZE + readLength(head);
+      dropped++;
+    }
+    writeLength(tail, record.length);
+    write(tail + LENGTH_SIZE, record);
+    tail += needed;
+    return true;
+  }
+
+  /**
+   * Removes the oldest record from the buffer.
+   *
+   * @return the oldest record, or {@code null} if the buffer is empty.
+   */
+  synchronized byte[] poll() {
+    if (head == tail) {
+      return null;
+    }
+    byte[] record = new byte[readLength(head)];
+    read(head + LENGTH_SIZE, record);
+    head += LENGTH_SIZE + record.length;
+    return record;
+  }
+
+  /**
+   * Returns the number of records dropped or evicted since the buffer was created, including the
+   * records counted by {@link #addDropped(int)}.
+   */
+  synchronized long getDropped() {
+    return dropped;
+  }
+
+  /**
+   * Counts records that were removed from the buffer but could not be delivered.
+   */
+  synchronized void addDropped(int count) {
+    dropped += count;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  private int readLength(long position) {
+    read(position, lengthBytes);
+    return ((lengthBytes[0] & 0xff) << 24) | ((lengthBytes[1] & 0xff) << 16)
+        | ((lengthBytes[2] & 0xff) << 8) | (lengthBytes[3] & 0xff);
+  }
+
+  private void writeLength(long position, int length) {
+    lengthBytes[0] = (byte) (length >>> 24);
+    lengthBytes[1] = (byte) (length >>> 16);
+    lengthBytes[2] = (byte) (length >>> 8);
+    lengthBytes[3] = (byte) length;
+    write(position, lengthBytes);
+  }
+
+  private void write(long position, byte[] src) {
+    int index = (int) (position % capacity);
+    int first = Math.min(src.length, capacity - index);
+    buffer.position(index);
+    buffer.put(src, 0, first);
+    if (first < src.length) {
+      buffer.position(0);
+      buffer.put(src, first, src.length - first);
+    }
+  }
+
+  private void read(long position, byte[] dst) {
+    int index = (int) (position % capacity);
+    int first = Math.min(dst.length, capacity - index);
+    buffer.position(index);
+    buffer.get(dst, 0, first);
+    if (first < dst.length) {
+      buffer.position(0);
+      buffer.get(dst, first, dst.length - first);
+    }
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.brave;
+
+import brave.propagation.B3Propagation;
+import brave.propagation.Propagation;
+import brave.propagation.TraceContext;
+import brave.propagation.TraceContextOrSamplingFlags;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Implementation of the {@link Propagation} that carries the trace context in a single W3C
+ * {@code traceparent} header, the same format used by OpenCensus (e.g.
+ * {@code 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01}).
+ *
+ * <p>The header is 55 characters long, compared to the four B3 headers ({@code X-B3-TraceId},
+ * {@code X-B3-SpanId}, {@code X-B3-ParentSpanId} and {@code X-B3-Sampled}) that carry up to 65
+ * characters of values plus the header names. Parsing and formatting do not allocate intermediate
+ * objects, only the resulting {@code TraceContext} or {@code String}.
+ *
+ * <p>Incoming requests that do not have a {@code traceparent} header are extracted using B3, so
+ * services can be migrated one by one.
+ */
+final class TraceparentPropagation<K> implements Propagation<K> {
+
+  static final String TRACEPARENT = "traceparent";
+
+  static final Propagation.Factory FACTORY = new Propagation.Factory() {
+    @Override
+    public <K> Propagation<K> create(KeyFactory<K> keyFactory) {
+      return new TraceparentPropagation<>(keyFactory);
+    }
+
+    @Override
+    public String toString() {
+      return "TraceparentPropagationFactory";
+    }
+  };
+
+  private static final int TRACE_ID_OFFSET = 3;
+  private static final int SPAN_ID_OFFSET = 36;
+  private static final int FLAGS_OFFSET = 53;
+  private static final int LENGTH = 55;
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  private static final ThreadLocal<char[]> buffer = ThreadLocal.withInitial(() -> new char[LENGTH]);
+
+  private final K traceparentKey;
+  private final Propagation<K> b3;
+  private final List<K> keys;
+
+  private TraceparentPropagation(KeyFactory<K> keyFactory) {
+    this.traceparentKey = keyFactory.create(TRACEPARENT);
+    this.b3 = B3Propagation.FACTORY.create(keyFactory);
+    List<K> keys = new ArrayList<>();
+    keys.add(traceparentKey);
+    keys.addAll(b3.keys());
+    this.keys = Collections.unmodifiableList(keys);
+  }
+
+  @Override
+  public List<K> keys() {
+    return keys;
+  }
+
+  @Override
+  public <C> TraceContext.Injector<C> injector(final Setter<C, K> setter) {
+    return (traceContext, carrier) -> setter.put(carrier, traceparentKey, format(traceContext));
+  }
+
+  @Override
+  public <C> TraceContext.Extractor<C> extractor(final Getter<C, K> getter) {
+    final TraceContext.Extractor<C> b3Extractor = b3.extractor(getter);
+    return carrier -> {
+      String traceparent = getter.get(carrier, traceparentKey);
+      if (traceparent == null) {
+        return b3Extractor.extract(carrier);
+      }
+      TraceContext traceContext = parse(traceparent);
+      return traceContext != null ? TraceContextOrSamplingFlags.create(traceContext)
+          : b3Extractor.extract(carrier);
+    };
+  }
+
+  /**
+   * Formats the given {@code TraceContext} as a {@code traceparent} header value.
+   */
+  static String format(TraceContext traceContext) {
+    char[] chars = buffer.get();
+    chars[0] = '0';
+    chars[1] = '0';
+    chars[2] = '-';
+    writeHex(traceContext.traceIdHigh(), chars, TRACE_ID_OFFSET);
+    writeHex(traceContext.traceId(), chars, TRACE_ID_OFFSET + 16);
+    chars[SPAN_ID_OFFSET - 1] = '-';
+    writeHex(traceContext.spanId(), chars, SPAN_ID_OFFSET);
+    chars[FLAGS_OFFSET - 1] = '-';
+    chars[FLAGS_OFFSET] = '0';
+    chars[FLAGS_OFFSET + 1] = Boolean.TRUE.equals(traceContext.sampled()) ? '1' : '0';
+    return new String(chars);
+  }
+
+  /**
+   * Parses a {@code traceparent} header value, returns {@code null} if the value is invalid.
+   */
+  static TraceContext parse(CharSequence value) {
+    if (value.length() != LENGTH
+        || value.charAt(0) != '0'
+        || value.charAt(1) != '0'
+        || value.charAt(TRACE_ID_OFFSET - 1) != '-'
+        || value.charAt(SPAN_ID_OFFSET - 1) != '-'
+        || value.charAt(FLAGS_OFFSET - 1) != '-'
+        || !isHex(value, TRACE_ID_OFFSET, 32)
+        || !isHex(value, SPAN_ID_OFFSET, 16)
+        || !isHex(value, FLAGS_OFFSET, 2)) {
+      return null;
+    }
+    long traceIdHigh = readHex(value, TRACE_ID_OFFSET);
+    long traceId = readHex(value, TRACE_ID_OFFSET + 16);
+    long spanId = readHex(value, SPAN_ID_OFFSET);
+    if ((traceIdHigh == 0 && traceId == 0) || spanId == 0) {
+      return null;
+    }
+    boolean sampled = (Character.digit(value.charAt(FLAGS_OFFSET + 1), 16) & 1) != 0;
+    return TraceContext.newBuilder()
+        .traceIdHigh(traceIdHigh)
+        .traceId(traceId)
+        .spanId(spanId)
+        .sampled(sampled)
+        .build();
+  }
+
+  private static void writeHex(long value, char[] chars, int offset) {
+    for (int i = 15; i >= 0; i--) {
+      chars[offset + i] = HEX_DIGITS[(int) (value & 0xf)];
+      value >>>= 4;
+    }
+  }
+
+  private static boolean isHex(CharSequence value, int offset, int length) {
+    for (int i = offset; i < offset + length; i++) {
+      char c = value.charAt(i);
+      if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long readHex(CharSequence value, int offset) {
+    long result = 0;
+    for (int i = offset; i < offset + 16; i++) {
+      result = (result << 4) | Character.digit(value.charAt(i), 16);
+    }
+    return result;
+  }
+}
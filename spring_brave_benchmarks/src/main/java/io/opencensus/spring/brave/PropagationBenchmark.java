@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.brave;
+
+import brave.propagation.B3Propagation;
+import brave.propagation.Propagation;
+import brave.propagation.TraceContext;
+import brave.propagation.TraceContextOrSamplingFlags;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the cost of injecting and extracting a {@link TraceContext} using the
+ * {@link TraceparentPropagation} and the B3 propagation, and prints the size of the headers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropagationBenchmark {
+
+  private static final TraceContext TRACE_CONTEXT = TraceContext.newBuilder()
+      .traceIdHigh(0x4bf92f3577b34da6L)
+      .traceId(0xa3ce929d0e0e4736L)
+      .parentId(0x53ce929d0e0e4736L)
+      .spanId(0x00f067aa0ba902b7L)
+      .sampled(true)
+      .build();
+
+  private static final Propagation<String> B3 =
+      B3Propagation.FACTORY.create(Propagation.KeyFactory.STRING);
+  private static final Propagation<String> TRACEPARENT =
+      TraceparentPropagation.FACTORY.create(Propagation.KeyFactory.STRING);
+
+  private final TraceContext.Injector<Map<String, String>> b3Injector = B3.injector(Map::put);
+  private final TraceContext.Extractor<Map<String, String>> b3Extractor = B3.extractor(Map::get);
+  private final TraceContext.Injector<Map<String, String>> traceparentInjector =
+      TRACEPARENT.injector(Map::put);
+  private final TraceContext.Extractor<Map<String, String>> traceparentExtractor =
+      TRACEPARENT.extractor(Map::get);
+
+  private final Map<String, String> b3Headers = inject(B3);
+  private final Map<String, String> traceparentHeaders = inject(TRACEPARENT);
+
+  @Benchmark
+  public Map<String, String> injectB3() {
+    Map<String, String> headers = new LinkedHashMap<>();
+    b3Injector.inject(TRACE_CONTEXT, headers);
+    return headers;
+  }
+
+  @Benchmark
+  public Map<String, String> injectTraceparent() {
+    Map<String, String> headers = new LinkedHashMap<>();
+    traceparentInjector.inject(TRACE_CONTEXT, headers);
+    return headers;
+  }
+
+  @Benchmark
+  public TraceContextOrSamplingFlags extractB3() {
+    return b3Extractor.extract(b3Headers);
+  }
+
+  @Benchmark
+  public TraceContextOrSamplingFlags extractTraceparent() {
+    return traceparentExtractor.extract(traceparentHeaders);
+  }
+
+  /**
+   * Prints the size of the headers of both formats and runs the benchmarks.
+   */
+  public static void main(String[] args) throws RunnerException {
+    System.out.println("B3 headers: " + headerBytes(inject(B3)) + " bytes");
+    System.out.println("traceparent header: " + headerBytes(inject(TRACEPARENT)) + " bytes");
+    new Runner(new OptionsBuilder()
+        .include(PropagationBenchmark.class.getSimpleName())
+        .build())
+        .run();
+  }
+
+  private static Map<String, String> inject(Propagation<String> propagation) {
+    Map<String, String> headers = new LinkedHashMap<>();
+    propagation.<Map<String, String>>injector(Map::put).inject(TRACE_CONTEXT, headers);
+    return headers;
+  }
+
+  // Size of the headers on the wire in HTTP/1.1, "name: value\r\n" for every header.
+  private static int headerBytes(Map<String, String> headers) {
+    int bytes = 0;
+    for (Map.Entry<String, String> header : headers.entrySet()) {
+      bytes += header.getKey().length() + 2 + header.getValue().length() + 2;
+    }
+    return bytes;
+  }
+}
@@ -16,19 +16,28 @@
 
 package io.opencensus.spring.sample.backend;
 
+import io.opencensus.common.Scope;
+import io.opencensus.exporter.stats.stackdriver.StackdriverStatsConfiguration;
+import io.opencensus.exporter.stats.stackdriver.StackdriverStatsExporter;
 import io.opencensus.exporter.trace.stackdriver.StackdriverTraceConfiguration;
 import io.opencensus.exporter.trace.stackdriver.StackdriverTraceExporter;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.Span;
+import io.opencensus.trace.Tracer;
+import io.opencensus.trace.Tracing;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
+import javax.servlet.http.HttpServletRequest;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -41,71 +50,117 @@ import org.springframework.web.bind.annotation.RestController;
 @EnableConfigurationProperties({
     BigtableWorkerProperties.class,
     CloudStorageWorkerProperties.class,
-    DatastoreWorkerProperties.class})
+    ConcurrencyLimitProperties.class,
+    DatastoreWorkerProperties.class,
+    HedgingProperties.class,
+    ProfileProperties.class,
+    WarmupProperties.class})
 public class Backend {
 
   private static Logger logger = Logger.getLogger(Backend.class.getName());
-  static final List<BackendWorker> workers = new LinkedList<>();
+  private static final Tracer tracer = Tracing.getTracer();
+
+  @Autowired
+  BackendWorkerRegistry workerRegistry;
+
+  @Autowired
+  WorkerProfiler workerProfiler;
 
   public static void main(String[] args) throws IOException {
     ApplicationContext context = SpringApplication.run(Backend.class, args);
+    BackendWorkerRegistry workers = context.getBean(BackendWorkerRegistry.class);
 
     try {
-      workers.add(context.getBean(BigtableWorker.class));
+      workers.register("bigtable", context.getBean(BigtableWorker.class));
       logger.info("Bigtable configured succeed.");
     } catch (Exception e) {
       logger.info("Bigtable configured failed: " + e.getMessage());
     }
     try {
-      workers.add(context.getBean(DatastoreWorker.class));
+      workers.register("datastore", context.getBean(DatastoreWorker.class));
       logger.info("Datastore configured succeed.");
     } catch (Exception e) {
       logger.info("Datastore configured failed: " + e.getMessage());
     }
     try {
-      workers.add(context.getBean(CloudStorageWorker.class));
+      workers.register("cloudstorage", context.getBean(CloudStorageWorker.class));
       logger.info("CloudStorage configured succeed.");
     } catch (Exception e) {
       logger.info("CloudStorage configured failed " + e.getMessage());
     }
 
     StackdriverTraceExporter.createAndRegister(StackdriverTraceConfiguration.builder().build());
+    // Stats are only exported for the ConcurrencyLimitFilter, when it is enabled.
+    if (context.getBean(ConcurrencyLimitProperties.class).isEnabled()) {
+      StackdriverStatsExporter.createAndRegister(StackdriverStatsConfiguration.builder().build());
+    }
+
+    context.getBean(BackendWarmup.class).warmUp(workers.getWorkers());
   }
 
   @RequestMapping("/backend-init")
   public String doInit() {
-    for (BackendWorker worker : workers) {
-      try {
-        worker.doInit();
-      } catch (Exception e) {
-        logger.info(worker.getClass().getName() + " failed init " + e.getMessage());
-      }
-    }
+    callWorkers("init", BackendWorker::doInit);
     return "Done init.";
   }
 
   @RequestMapping("/backend-work")
-  public String doWork() {
-    for (BackendWorker worker : workers) {
-      try {
-        worker.doWork();
-      } catch (Exception e) {
-        logger.info(worker.getClass().getName() + " failed work " + e.getMessage());
-      }
+  public String doWork(HttpServletRequest request) {
+    if (!callWorkers("work", BackendWorker::doWork)) {
+      request.setAttribute(ConcurrencyLimitFilter.WORKER_FAILED_ATTRIBUTE, Boolean.TRUE);
     }
     return "Done work.";
   }
 
   @RequestMapping("/backend-cleanup")
   public String doCleanup() {
-    for (BackendWorker worker : workers) {
-      try {
-        worker.doCleanup();
-      } catch (Exception e) {
-        logger.info(worker.getClass().getName() + " failed cleanup " + e.getMessage());
-      }
+    callWorkers("cleanup", BackendWorker::doCleanup);
+    return "Done cleanup.";
+  }
+
+  @RequestMapping(value = "/profilez", produces = MediaType.TEXT_PLAIN_VALUE)
+  public String profilez() {
+    return workerProfiler.render();
+  }
 
+  // Returns false if any worker failed.
+  private boolean callWorkers(String action, Consumer<BackendWorker> call) {
+    boolean profile = workerProfiler.isEnabled();
+    Span requestSpan = tracer.getCurrentSpan();
+    // When profiling, the spans started under the workers are not sampled; their annotations and
+    // attributes (e.g. hedged reads) are still added to the request span.
+    Scope scope = profile ? tracer.withSpan(UnsampledSpan.of(requestSpan)) : null;
+    BackendWorker dominant = null;
+    long dominantNanos = -1;
+    boolean succeeded = true;
+    try {
+      for (BackendWorker worker : workerRegistry.getWorkers()) {
+        long start = System.nanoTime();
+        try {
+          call.accept(worker);
+        } catch (Exception e) {
+          logger.info(worker.getClass().getName() + " failed " + action + " " + e.getMessage());
+          succeeded = false;
+        }
+        if (profile) {
+          long elapsedNanos = System.nanoTime() - start;
+          workerProfiler.record(action, worker, elapsedNanos);
+          if (elapsedNanos > dominantNanos) {
+            dominant = worker;
+            dominantNanos = elapsedNanos;
+          }
+        }
+      }
+    } finally {
+      if (scope != null) {
+        scope.close();
+      }
     }
-    return "Done cleanup.";
+    if (dominant != null) {
+      workerProfiler.recordDominant(action, dominant);
+      requestSpan.putAttribute("backend.dominant_worker",
+          AttributeValue.stringAttributeValue(dominant.getClass().getSimpleName()));
+    }
+    return succeeded;
   }
-}
\ No newline at end of file
+}
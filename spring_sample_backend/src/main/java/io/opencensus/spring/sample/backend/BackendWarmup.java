@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.sample.backend;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warms up the {@link BackendWorker}s (JIT, client and credentials initialization) before the
+ * {@link Backend} reports ready (see {@link BackendWarmupHealthIndicator}), so load balancers only
+ * route traffic to warm instances.
+ */
+@Component
+final class BackendWarmup {
+
+  private static final Logger logger = Logger.getLogger(BackendWarmup.class.getName());
+
+  @Autowired
+  private WarmupProperties warmupProperties;
+
+  private volatile boolean ready;
+  private volatile Map<String, String> results = Collections.emptyMap();
+
+  BackendWarmup() {
+  }
+
+  /**
+   * Exercises the read path of the given workers the configured number of times, then marks the
+   * Backend as ready. A failed iteration is logged and does not stop the warm-up of the worker; a
+   * worker that failed every iteration is reported as failed and does not prevent the Backend
+   * from becoming ready.
+   *
+   * @param workers the workers to warm up.
+   */
+  void warmUp(List<BackendWorker> workers) {
+    Map<String, String> results = new LinkedHashMap<>();
+    for (BackendWorker worker : workers) {
+      String name = worker.getClass().getSimpleName();
+      int iterations = warmupProperties.getIterations();
+      int failures = 0;
+      Exception lastFailure = null;
+      long start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        try {
+          worker.doWarmup();
+        } catch (Exception e) {
+          failures++;
+          lastFailure = e;
+          logger.info(worker.getClass().getName() + " failed warmup " + e.getMessage());
+        }
+      }
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      String result;
+      if (lastFailure == null) {
+        result = "warmed up in " + elapsedMillis + "ms";
+      } else if (failures < iterations) {
+        result = "warmed up in " + elapsedMillis + "ms, " + failures + " of " + iterations
+            + " iterations failed: " + lastFailure.getMessage();
+      } else {
+        result = "failed: " + lastFailure.getMessage();
+      }
+      results.put(name, result);
+      logger.info(name + " " + result + ".");
+    }
+    this.results = Collections.unmodifiableMap(results);
+    this.ready = true;
+  }
+
+  /**
+   * Returns {@code true} once the warm-up is done.
+   */
+  boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Returns the warm-up result (duration or failure) of every worker.
+   */
+  Map<String, String> getResults() {
+    return results;
+  }
+}
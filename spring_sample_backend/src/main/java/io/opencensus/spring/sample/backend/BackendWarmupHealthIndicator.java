@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.sample.backend;
+
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link HealthIndicator} that reports the {@link Backend} as {@code OUT_OF_SERVICE} until the
+ * {@link BackendWarmup} is done, so {@code /actuator/health} returns a 503 while warming up.
+ */
+@Component
+final class BackendWarmupHealthIndicator implements HealthIndicator {
+
+  @Autowired
+  private BackendWarmup backendWarmup;
+
+  BackendWarmupHealthIndicator() {
+  }
+
+  @Override
+  public Health health() {
+    if (!backendWarmup.isReady()) {
+      return Health.outOfService().withDetail("warmup", "in progress").build();
+    }
+    Health.Builder builder = Health.up();
+    for (Map.Entry<String, String> result : backendWarmup.getResults().entrySet()) {
+      builder.withDetail(result.getKey(), result.getValue());
+    }
+    return builder.build();
+  }
+}
@@ -35,4 +35,9 @@ public interface BackendWorker {
    * Does cleanup work. Called when the Backend receives a request to "/backend_cleanup".
    */
   void doCleanup();
+
+  /**
+   * Exercises the read path without modifying any data. Called before the Backend reports ready.
+   */
+  void doWarmup();
 }
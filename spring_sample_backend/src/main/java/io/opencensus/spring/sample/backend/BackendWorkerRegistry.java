@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.sample.backend;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry of the {@link BackendWorker}s called by the {@link Backend}.
+ *
+ * <p>Workers are kept in an immutable snapshot that is replaced (copy-on-write) every time a
+ * worker is added or removed, so request threads can iterate the active workers without locking.
+ *
+ * <p>A registered worker is activated or deactivated at runtime when its
+ * {@code spring.opencensus.sample.backend.<name>.enabled} property changes, which is notified by an
+ * {@link EnvironmentChangeEvent} after a config refresh (e.g. {@code POST /actuator/refresh}).
+ * Workers that were not registered at startup cannot be enabled without a restart.
+ */
+@Component
+final class BackendWorkerRegistry implements ApplicationListener<EnvironmentChangeEvent> {
+
+  private static final Logger logger = Logger.getLogger(BackendWorkerRegistry.class.getName());
+  private static final String PROPERTY_PREFIX = "spring.opencensus.sample.backend.";
+  private static final String ENABLED_SUFFIX = ".enabled";
+
+  // All the registered workers by name, guarded by "this".
+  private final Map<String, BackendWorker> registered = new LinkedHashMap<>();
+  // The active workers by name, guarded by "this".
+  private final Map<String, BackendWorker> active = new LinkedHashMap<>();
+  // Immutable snapshot of the active workers, replaced on every change.
+  private volatile List<BackendWorker> snapshot = Collections.emptyList();
+
+  @Autowired
+  private Environment environment;
+
+  BackendWorkerRegistry() {
+  }
+
+  /**
+   * Returns an immutable snapshot of the active workers. Safe to iterate from any thread.
+   *
+   * @return an immutable snapshot of the active workers.
+   */
+  List<BackendWorker> getWorkers() {
+    return snapshot;
+  }
+
+  /**
+   * Registers and activates the worker with the given name. Replaces any worker previously
+   * registered with the same name.
+   *
+   * @param name the name of the worker, as used in the configuration properties.
+   * @param worker the worker to register.
+   */
+  synchronized void register(String name, BackendWorker worker) {
+    registered.put(name, worker);
+    active.put(name, worker);
+    publish();
+  }
+
+  /**
+   * Unregisters the worker with the given name.
+   *
+   * @param name the name of the worker.
+   * @return {@code true} if a worker was registered with the given name.
+   */
+  synchronized boolean unregister(String name) {
+    active.remove(name);
+    boolean removed = registered.remove(name) != null;
+    publish();
+    return removed;
+  }
+
+  /**
+   * Activates or deactivates a previously registered worker.
+   *
+   * @param name the name of the worker.
+   * @param enabled whether the worker should be called for the incoming requests.
+   * @return {@code true} if a worker was registered with the given name.
+   */
+  synchronized boolean setEnabled(String name, boolean enabled) {
+    BackendWorker worker = registered.get(name);
+    if (worker == null) {
+      return false;
+    }
+    if (enabled) {
+      active.put(name, worker);
+    } else {
+      active.remove(name);
+    }
+    publish();
+    return true;
+  }
+
+  @Override
+  public void onApplicationEvent(EnvironmentChangeEvent event) {
+    for (String name : getRegisteredNames()) {
+      String key = PROPERTY_PREFIX + name + ENABLED_SUFFIX;
+      if (!event.getKeys().contains(key)) {
+        continue;
+      }
+      boolean enabled = environment.getProperty(key, Boolean.class, false);
+      if (setEnabled(name, enabled)) {
+        logger.info("Worker " + name + (enabled ? " enabled." : " disabled."));
+      }
+    }
+  }
+
+  private synchronized List<String> getRegisteredNames() {
+    return new ArrayList<>(registered.keySet());
+  }
+
+  private void publish() {
+    snapshot = Collections.unmodifiableList(new ArrayList<>(active.values()));
+  }
+}
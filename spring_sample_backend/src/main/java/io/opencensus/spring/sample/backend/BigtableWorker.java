@@ -25,9 +25,10 @@ import org.apache.hadoop.hbase.client.Admin;
 import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.Put;
-import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.Table;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
@@ -37,31 +38,61 @@ import org.springframework.stereotype.Component;
  */
 @Component
 @ConditionalOnProperty(name = "spring.opencensus.sample.backend.bigtable.enabled")
-final class BigtableWorker implements BackendWorker {
+final class BigtableWorker implements BackendWorker, InitializingBean, DisposableBean {
 
   // Refer to table metadata names by byte array in the HBase API
   private static final byte[] TABLE_NAME = Bytes.toBytes("HelloBigtable");
   private static final byte[] COLUMN_FAMILY_NAME = Bytes.toBytes("cf1");
   private static final byte[] COLUMN_NAME = Bytes.toBytes("greeting");
-  private static final byte[] ROW_NAME = Bytes.toBytes("greeting0");
-
-  // Write some friendly greetings to Cloud Bigtable
-  private static final String GREETING = "Hello World!";
+  private static final String ROW_PREFIX = "greeting";
 
   @Autowired
   private BigtableWorkerProperties bigtableWorkerProperties;
 
+  @Autowired
+  private ReadHedging readHedging;
+
+  private Workload workload;
+  // Shared by all the requests, the connection is thread-safe and expensive to create.
+  private volatile Connection connection;
+
   BigtableWorker() {
   }
 
+  @Override
+  public void afterPropertiesSet() {
+    workload = new Workload(ROW_PREFIX, bigtableWorkerProperties.getWorkload());
+  }
+
+  @Override
+  public void destroy() throws IOException {
+    Connection connection = this.connection;
+    if (connection != null) {
+      connection.close();
+    }
+  }
+
+  // Created on first use, so a misconfigured worker fails its calls (and is reported by the
+  // warm-up) instead of failing the startup of the Backend.
+  private Connection connection() {
+    Connection connection = this.connection;
+    if (connection == null) {
+      synchronized (this) {
+        connection = this.connection;
+        if (connection == null) {
+          connection = BigtableConfiguration.connect(bigtableWorkerProperties.getProjectId(),
+              bigtableWorkerProperties.getInstanceId());
+          this.connection = connection;
+        }
+      }
+    }
+    return connection;
+  }
+
   @Override
   public void doInit() {
-    // Create the Bigtable connection, use try-with-resources to make sure it gets closed
-    try (Connection connection = BigtableConfiguration.connect(
-        bigtableWorkerProperties.getProjectId(),
-        bigtableWorkerProperties.getInstanceId())) {
-      // The admin API lets us create and delete tables
-      Admin admin = connection.getAdmin();
+    // The admin API lets us create and delete tables
+    try (Admin admin = connection().getAdmin()) {
       HTableDescriptor descriptor = new HTableDescriptor(TableName.valueOf(TABLE_NAME));
       descriptor.addFamily(new HColumnDescriptor(COLUMN_FAMILY_NAME));
       admin.createTable(descriptor);
@@ -73,12 +104,8 @@ final class BigtableWorker implements BackendWorker {
 
   @Override
   public void doCleanup() {
-    // Create the Bigtable connection, use try-with-resources to make sure it gets closed
-    try (Connection connection = BigtableConfiguration.connect(
-        bigtableWorkerProperties.getProjectId(),
-        bigtableWorkerProperties.getInstanceId())) {
-      // The admin API lets us create and delete tables
-      Admin admin = connection.getAdmin();
+    // The admin API lets us create and delete tables
+    try (Admin admin = connection().getAdmin()) {
       TableName tableName = TableName.valueOf(TABLE_NAME);
       admin.disableTable(tableName);
       admin.deleteTable(tableName);
@@ -88,28 +115,43 @@ final class BigtableWorker implements BackendWorker {
     }
   }
 
+  @Override
+  public void doWarmup() {
+    try (Table table = connection().getTable(TableName.valueOf(TABLE_NAME))) {
+      // The row may not exist yet, only the read path matters.
+      table.get(new Get(Bytes.toBytes(workload.key(0))));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   @Override
   public void doWork() {
-    // Create the Bigtable connection, use try-with-resources to make sure it gets closed
-    try (Connection connection = BigtableConfiguration.connect(
-        bigtableWorkerProperties.getProjectId(),
-        bigtableWorkerProperties.getInstanceId())) {
-      // Retrieve the table.
-      Table table = connection.getTable(TableName.valueOf(TABLE_NAME));
-
-      // Put a single row into the table.
-      Put put = new Put(ROW_NAME);
-      put.addColumn(COLUMN_FAMILY_NAME, COLUMN_NAME, Bytes.toBytes(GREETING));
-      table.put(put);
-
-      // Get a single row from the table.
-      Result getResult = table.get(new Get(ROW_NAME));
-      String greeting = Bytes.toString(getResult.getValue(COLUMN_FAMILY_NAME, COLUMN_NAME));
-      if (!greeting.equals(GREETING)) {
-        throw new RuntimeException("Invalid get after put.");
+    Connection connection = connection();
+    // Retrieve the table, use try-with-resources to make sure it gets closed
+    try (Table table = connection.getTable(TableName.valueOf(TABLE_NAME))) {
+      HedgedReader reader = readHedging.forWorker("bigtable");
+
+      for (int i = 0; i < workload.getOperationsPerRequest(); i++) {
+        byte[] row = Bytes.toBytes(workload.nextKey());
+        if (workload.nextIsRead()) {
+          // Get a single row from the table. A Table is not thread-safe, so every read (primary
+          // or hedged) uses its own Table and closes it once the read completed.
+          Get get = new Get(row);
+          reader.read(() -> {
+            try (Table readTable = connection.getTable(TableName.valueOf(TABLE_NAME))) {
+              return readTable.get(get);
+            }
+          });
+        } else {
+          // Put a single row into the table.
+          Put put = new Put(row);
+          put.addColumn(COLUMN_FAMILY_NAME, COLUMN_NAME, workload.nextValue());
+          table.put(put);
+        }
       }
     } catch (IOException e) {
       e.printStackTrace();
     }
   }
-}
\ No newline at end of file
+}
@@ -16,6 +16,7 @@
 
 package io.opencensus.spring.sample.backend;
 
+import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
@@ -34,6 +35,9 @@ public class BigtableWorkerProperties {
   @NotNull
   private String instanceId;
 
+  @Valid
+  private final WorkloadProperties workload = new WorkloadProperties();
+
   public void setEnabled(boolean enabled) {
     this.enabled = enabled;
   }
@@ -57,4 +61,8 @@ public class BigtableWorkerProperties {
   public String getInstanceId() {
     return this.instanceId;
   }
+
+  public WorkloadProperties getWorkload() {
+    return this.workload;
+  }
 }
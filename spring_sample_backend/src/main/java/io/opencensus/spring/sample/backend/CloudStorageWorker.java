@@ -16,14 +16,14 @@
 
 package io.opencensus.spring.sample.backend;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.BucketInfo;
 import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
 import com.google.cloud.storage.StorageOptions;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
@@ -33,46 +33,92 @@ import org.springframework.stereotype.Component;
  */
 @Component
 @ConditionalOnProperty(name = "spring.opencensus.sample.backend.cloudstorage.enabled")
-public class CloudStorageWorker implements BackendWorker {
+public class CloudStorageWorker implements BackendWorker, InitializingBean {
   private static final String BUCKET_NAME = "oc-sample-bucket-name";
-  private static final String BLOB_NAME = "oc-sample-blob-name";
-  private static final String CONTENT_STRING = "a simple blob";
+  private static final String BLOB_PREFIX = "oc-sample-blob-";
+  private static final int NOT_FOUND = 404;
 
   @Autowired
   private CloudStorageWorkerProperties cloudStorageWorkerProperties;
 
+  @Autowired
+  private ReadHedging readHedging;
+
+  private Workload workload;
+  // Shared by all the requests, the service is thread-safe.
+  private volatile Storage storage;
+
   CloudStorageWorker() {
   }
 
+  @Override
+  public void afterPropertiesSet() {
+    workload = new Workload(BLOB_PREFIX, cloudStorageWorkerProperties.getWorkload());
+  }
+
+  // Created on first use, so a misconfigured worker fails its calls (and is reported by the
+  // warm-up) instead of failing the startup of the Backend.
+  private Storage storage() {
+    Storage storage = this.storage;
+    if (storage == null) {
+      synchronized (this) {
+        storage = this.storage;
+        if (storage == null) {
+          storage = StorageOptions.getDefaultInstance().toBuilder().setProjectId
+              (cloudStorageWorkerProperties.getProjectId()).build().getService();
+          this.storage = storage;
+        }
+      }
+    }
+    return storage;
+  }
+
   @Override
   public void doInit() {
-    Storage storage = StorageOptions.getDefaultInstance().toBuilder().setProjectId
-        (cloudStorageWorkerProperties.getProjectId()).build().getService();
-    storage.create(BucketInfo.of(BUCKET_NAME));
+    storage().create(BucketInfo.of(BUCKET_NAME));
   }
 
   @Override
   public void doWork() {
-    Storage storage = StorageOptions.getDefaultInstance().toBuilder().setProjectId
-        (cloudStorageWorkerProperties.getProjectId()).build().getService();
-    // Upload a blob.
-    BlobId blobId = BlobId.of(BUCKET_NAME, BLOB_NAME);
-    BlobInfo blobInfo = BlobInfo.newBuilder(blobId).setContentType("text/plain").build();
-    Blob blob = storage.create(blobInfo, CONTENT_STRING.getBytes(UTF_8));
-    // Read a blob.
-    byte[] content = storage.readAllBytes(blobId);
-    String contentString = new String(content, UTF_8);
-    if (!contentString.equals(CONTENT_STRING)) {
-      throw new RuntimeException("Invalid read after upload.");
+    HedgedReader reader = readHedging.forWorker("cloudstorage");
+    for (int i = 0; i < workload.getOperationsPerRequest(); i++) {
+      BlobId blobId = BlobId.of(BUCKET_NAME, workload.nextKey());
+      if (workload.nextIsRead()) {
+        // Read a blob, it may not have been uploaded yet.
+        try {
+          reader.read(() -> storage().readAllBytes(blobId));
+        } catch (StorageException e) {
+          if (e.getCode() != NOT_FOUND) {
+            throw e;
+          }
+        }
+      } else {
+        // Upload a blob.
+        BlobInfo blobInfo =
+            BlobInfo.newBuilder(blobId).setContentType("application/octet-stream").build();
+        storage().create(blobInfo, workload.nextValue());
+      }
+    }
+  }
+
+  @Override
+  public void doWarmup() {
+    // Same read as doWork(), the blob may not exist yet.
+    try {
+      storage().readAllBytes(BlobId.of(BUCKET_NAME, workload.key(0)));
+    } catch (StorageException e) {
+      if (e.getCode() != NOT_FOUND) {
+        throw e;
+      }
     }
-    // Delete a blob.
-    storage.delete(blobId);
   }
 
   @Override
   public void doCleanup() {
-    Storage storage = StorageOptions.getDefaultInstance().toBuilder().setProjectId
-        (cloudStorageWorkerProperties.getProjectId()).build().getService();
-    storage.get(BUCKET_NAME).delete();
+    // A bucket must be empty to be deleted.
+    for (Blob blob : storage().list(BUCKET_NAME).iterateAll()) {
+      blob.delete();
+    }
+    storage().get(BUCKET_NAME).delete();
   }
 }
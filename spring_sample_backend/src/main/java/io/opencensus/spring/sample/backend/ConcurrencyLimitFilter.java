@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.sample.backend;
+
+import io.opencensus.stats.Aggregation;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.stats.Stats;
+import io.opencensus.stats.StatsRecorder;
+import io.opencensus.stats.View;
+import io.opencensus.stats.ViewManager;
+import io.opencensus.tags.TagKey;
+import java.io.IOException;
+import java.util.Collections;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Filter that limits the number of concurrent work requests to the {@link Backend} using a
+ * {@link ConcurrencyLimiter}. Requests above the limit are rejected with a 503 instead of being
+ * queued by the servlet container.
+ *
+ * <p>The limit, the number of requests in flight and the number of rejected requests are recorded
+ * as OpenCensus stats.
+ */
+@Component
+final class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+  // Only the work requests are limited, init and cleanup are slow administrative requests that
+  // would otherwise shrink the limit.
+  private static final String WORK_PATH = "/backend-work";
+
+  /**
+   * Request attribute set by the {@link Backend} when a worker failed, the response is still a 200.
+   */
+  static final String WORKER_FAILED_ATTRIBUTE = ConcurrencyLimitFilter.class.getName() + ".FAILED";
+
+  private static final MeasureLong LIMIT = MeasureLong.create(
+      "backend/concurrency/limit", "Concurrency limit of the Backend endpoints", "1");
+  private static final MeasureLong IN_FLIGHT = MeasureLong.create(
+      "backend/concurrency/in_flight", "Requests in flight in the Backend endpoints", "1");
+  private static final MeasureLong REJECTED = MeasureLong.create(
+      "backend/concurrency/rejected", "Requests rejected by the Backend endpoints", "1");
+
+  private static final StatsRecorder statsRecorder = Stats.getStatsRecorder();
+
+  private final ConcurrencyLimitProperties concurrencyLimitProperties;
+  private final ConcurrencyLimiter limiter;
+
+  // Constructor injection instead of initFilterBean(), which is called both when the bean is
+  // initialized and when the servlet container initializes the filter.
+  ConcurrencyLimitFilter(ConcurrencyLimitProperties concurrencyLimitProperties) {
+    this.concurrencyLimitProperties = concurrencyLimitProperties;
+    this.limiter = new ConcurrencyLimiter(concurrencyLimitProperties);
+    ViewManager viewManager = Stats.getViewManager();
+    viewManager.registerView(View.create(View.Name.create(LIMIT.getName()),
+        LIMIT.getDescription(), LIMIT, Aggregation.LastValue.create(),
+        Collections.<TagKey>emptyList()));
+    viewManager.registerView(View.create(View.Name.create(IN_FLIGHT.getName()),
+        IN_FLIGHT.getDescription(), IN_FLIGHT, Aggregation.LastValue.create(),
+        Collections.<TagKey>emptyList()));
+    viewManager.registerView(View.create(View.Name.create(REJECTED.getName()),
+        REJECTED.getDescription(), REJECTED, Aggregation.Count.create(),
+        Collections.<TagKey>emptyList()));
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !concurrencyLimitProperties.isEnabled()
+        || !request.getRequestURI().equals(WORK_PATH);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    if (!limiter.tryAcquire()) {
+      statsRecorder.newMeasureMap()
+          .put(REJECTED, 1)
+          .put(IN_FLIGHT, limiter.getInFlight())
+          .record();
+      response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      response.setHeader("Retry-After", "1");
+      response.getWriter().write("Too many concurrent requests.");
+      return;
+    }
+    long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      filterChain.doFilter(request, response);
+      failed = response.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR
+          || Boolean.TRUE.equals(request.getAttribute(WORKER_FAILED_ATTRIBUTE));
+    } finally {
+      limiter.release(start, failed);
+      statsRecorder.newMeasureMap()
+          .put(LIMIT, limiter.getLimit())
+          .put(IN_FLIGHT, limiter.getInFlight())
+          .record();
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.sample.backend;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * {@link ConcurrencyLimitFilter} properties.
+ */
+@ConfigurationProperties("spring.opencensus.sample.backend.concurrency")
+@Validated
+public class ConcurrencyLimitProperties {
+
+  private boolean enabled = false;
+
+  @Min(1)
+  private int initialLimit = 20;
+
+  @Min(1)
+  private int minLimit = 1;
+
+  @Min(1)
+  private int maxLimit = 200;
+
+  @Min(1)
+  private long latencyThresholdMillis = 1000;
+
+  @DecimalMin("0.1")
+  @DecimalMax("0.99")
+  private double backoffRatio = 0.9;
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  public void setInitialLimit(int initialLimit) {
+    this.initialLimit = initialLimit;
+  }
+
+  public int getInitialLimit() {
+    return this.initialLimit;
+  }
+
+  public void setMinLimit(int minLimit) {
+    this.minLimit = minLimit;
+  }
+
+  public int getMinLimit() {
+    return this.minLimit;
+  }
+
+  public void setMaxLimit(int maxLimit) {
+    this.maxLimit = maxLimit;
+  }
+
+  public int getMaxLimit() {
+    return this.maxLimit;
+  }
+
+  public void setLatencyThresholdMillis(long latencyThresholdMillis) {
+    this.latencyThresholdMillis = latencyThresholdMillis;
+  }
+
+  /**
+   * Returns the request latency above which the concurrency limit is decreased.
+   */
+  public long getLatencyThresholdMillis() {
+    return this.latencyThresholdMillis;
+  }
+
+  public void setBackoffRatio(double backoffRatio) {
+    this.backoffRatio = backoffRatio;
+  }
+
+  /**
+   * Returns the ratio applied to the concurrency limit when it is decreased.
+   */
+  public double getBackoffRatio() {
+    return this.backoffRatio;
+  }
+}
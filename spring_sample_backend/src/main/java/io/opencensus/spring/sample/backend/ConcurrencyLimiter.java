@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.sample.backend;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free AIMD (additive increase, multiplicative decrease) concurrency limiter.
+ *
+ * <p>The limit is increased by one for every request that completes under the latency threshold
+ * while at least half of the limit is in use, and multiplied by the backoff ratio when a request
+ * fails or exceeds the latency threshold. The limit is decreased at most once per generation of
+ * requests: requests started before the last decrease do not decrease it again, so a burst of
+ * slow requests only backs off once.
+ */
+final class ConcurrencyLimiter {
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  // Bits of the double value of the limit.
+  private final AtomicLong limit;
+  // System.nanoTime() of the last decrease of the limit.
+  private final AtomicLong lastDecreaseNanos = new AtomicLong(System.nanoTime());
+  private final double minLimit;
+  private final double maxLimit;
+  private final long latencyThresholdNanos;
+  private final double backoffRatio;
+
+  ConcurrencyLimiter(ConcurrencyLimitProperties properties) {
+    this.minLimit = properties.getMinLimit();
+    this.maxLimit = Math.max(properties.getMinLimit(), properties.getMaxLimit());
+    this.limit = new AtomicLong(Double.doubleToLongBits(
+        Math.min(maxLimit, Math.max(minLimit, properties.getInitialLimit()))));
+    this.latencyThresholdNanos =
+        TimeUnit.MILLISECONDS.toNanos(properties.getLatencyThresholdMillis());
+    this.backoffRatio = properties.getBackoffRatio();
+  }
+
+  /**
+   * Tries to acquire a permit for a new request.
+   *
+   * @return {@code true} if the request is admitted, in which case {@link #release} must be called
+   *     when it completes.
+   */
+  boolean tryAcquire() {
+    int limit = getLimit();
+    int current;
+    do {
+      current = inFlight.get();
+      if (current >= limit) {
+        return false;
+      }
+    } while (!inFlight.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  /**
+   * Releases the permit of a completed request and adjusts the limit.
+   *
+   * @param startNanos the {@link System#nanoTime()} at which the request was admitted.
+   * @param failed whether the request failed.
+   */
+  void release(long startNanos, boolean failed) {
+    int current = inFlight.getAndDecrement();
+    long now = System.nanoTime();
+    boolean decrease = failed || now - startNanos > latencyThresholdNanos;
+    if (decrease) {
+      long lastDecrease = lastDecreaseNanos.get();
+      if (startNanos - lastDecrease < 0 || !lastDecreaseNanos.compareAndSet(lastDecrease, now)) {
+        // Already backed off for this generation of requests.
+        return;
+      }
+    }
+    long bits;
+    double newLimit;
+    do {
+      bits = limit.get();
+      double oldLimit = Double.longBitsToDouble(bits);
+      if (decrease) {
+        newLimit = Math.max(minLimit, oldLimit * backoffRatio);
+      } else if (current * 2 >= oldLimit) {
+        newLimit = Math.min(maxLimit, oldLimit + 1);
+      } else {
+        return;
+      }
+    } while (!limit.compareAndSet(bits, Double.doubleToLongBits(newLimit)));
+  }
+
+  /**
+   * Returns the current concurrency limit.
+   */
+  int getLimit() {
+    return (int) Double.longBitsToDouble(limit.get());
+  }
+
+  /**
+   * Returns the number of requests in flight.
+   */
+  int getInFlight() {
+    return inFlight.get();
+  }
+}
@@ -16,11 +16,18 @@
 
 package io.opencensus.spring.sample.backend;
 
+import com.google.cloud.datastore.Blob;
+import com.google.cloud.datastore.BlobValue;
 import com.google.cloud.datastore.Datastore;
 import com.google.cloud.datastore.DatastoreOptions;
 import com.google.cloud.datastore.Entity;
 import com.google.cloud.datastore.Key;
 import com.google.cloud.datastore.KeyFactory;
+import com.google.cloud.datastore.Query;
+import com.google.cloud.datastore.QueryResults;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
@@ -30,58 +37,104 @@ import org.springframework.stereotype.Component;
  */
 @Component
 @ConditionalOnProperty(name = "spring.opencensus.sample.backend.datastore.enabled")
-public class DatastoreWorker implements BackendWorker {
+public class DatastoreWorker implements BackendWorker, InitializingBean {
 
   private static final String KIND_NAME = "Person";
-  private static final String KEY_NAME = "john.doe@gmail.com";
+  private static final String KEY_PREFIX = "person";
   private static final String ACCESS_TIME = "access_time";
+  private static final String VALUE = "value";
+  // Maximum number of keys per delete call.
+  private static final int DELETE_BATCH_SIZE = 500;
 
   @Autowired
   private DatastoreWorkerProperties datastoreWorkerProperties;
 
+  @Autowired
+  private ReadHedging readHedging;
+
+  private Workload workload;
+  // Shared by all the requests, the service is thread-safe.
+  private volatile Datastore datastore;
+
   DatastoreWorker() {
   }
 
+  @Override
+  public void afterPropertiesSet() {
+    workload = new Workload(KEY_PREFIX, datastoreWorkerProperties.getWorkload());
+  }
+
+  // Created on first use, so a misconfigured worker fails its calls (and is reported by the
+  // warm-up) instead of failing the startup of the Backend.
+  private Datastore datastore() {
+    Datastore datastore = this.datastore;
+    if (datastore == null) {
+      synchronized (this) {
+        datastore = this.datastore;
+        if (datastore == null) {
+          datastore = DatastoreOptions.getDefaultInstance().toBuilder().setProjectId
+              (datastoreWorkerProperties.getProjectId()).build().getService();
+          this.datastore = datastore;
+        }
+      }
+    }
+    return datastore;
+  }
+
   @Override
   public void doInit() {
-    Datastore datastore = DatastoreOptions.getDefaultInstance().toBuilder().setProjectId
-        (datastoreWorkerProperties.getProjectId()).build().getService();
-    KeyFactory keyFactory = datastore.newKeyFactory().setKind(KIND_NAME);
-    Key key = keyFactory.newKey(KEY_NAME);
+    KeyFactory keyFactory = datastore().newKeyFactory().setKind(KIND_NAME);
+    Key key = keyFactory.newKey(workload.key(0));
     Entity entity = Entity.newBuilder(key)
         .set("name", "John Doe")
         .set("age", 51)
         .set("favorite_food", "pizza")
         .build();
-    datastore.put(entity);
+    datastore().put(entity);
   }
 
   @Override
   public void doWork() {
-    Datastore datastore = DatastoreOptions.getDefaultInstance().toBuilder().setProjectId
-        (datastoreWorkerProperties.getProjectId()).build().getService();
-    KeyFactory keyFactory = datastore.newKeyFactory().setKind(KIND_NAME);
-    Key key = keyFactory.newKey(KEY_NAME);
-    Entity entity = datastore.get(key);
-    if (entity == null) {
-      throw new RuntimeException("Entry not present. Call init.");
-    }
-    long now = System.currentTimeMillis();
-    entity = Entity.newBuilder(entity)
-        .set(ACCESS_TIME, now)
-        .build();
-    datastore.update(entity);
-    if (datastore.get(key).getLong(ACCESS_TIME) != now) {
-      throw new RuntimeException("Invalid get after update.");
+    KeyFactory keyFactory = datastore().newKeyFactory().setKind(KIND_NAME);
+    HedgedReader reader = readHedging.forWorker("datastore");
+    for (int i = 0; i < workload.getOperationsPerRequest(); i++) {
+      Key key = keyFactory.newKey(workload.nextKey());
+      if (workload.nextIsRead()) {
+        reader.read(() -> datastore().get(key));
+      } else {
+        Entity entity = Entity.newBuilder(key)
+            .set(VALUE, BlobValue.newBuilder(Blob.copyFrom(workload.nextValue()))
+                .setExcludeFromIndexes(true)
+                .build())
+            .set(ACCESS_TIME, System.currentTimeMillis())
+            .build();
+        datastore().put(entity);
+      }
     }
   }
 
+  @Override
+  public void doWarmup() {
+    KeyFactory keyFactory = datastore().newKeyFactory().setKind(KIND_NAME);
+    // The entity may not exist yet, only the read path matters.
+    datastore().get(keyFactory.newKey(workload.key(0)));
+  }
+
   @Override
   public void doCleanup() {
-    Datastore datastore = DatastoreOptions.getDefaultInstance().toBuilder().setProjectId
-        (datastoreWorkerProperties.getProjectId()).build().getService();
-    KeyFactory keyFactory = datastore.newKeyFactory().setKind(KIND_NAME);
-    Key key = keyFactory.newKey(KEY_NAME);
-    datastore.delete(key);
+    // Keys-only query, only the entities that exist are deleted and their values are not fetched.
+    Query<Key> query = Query.newKeyQueryBuilder().setKind(KIND_NAME).build();
+    QueryResults<Key> results = datastore().run(query);
+    List<Key> keys = new ArrayList<>(DELETE_BATCH_SIZE);
+    while (results.hasNext()) {
+      keys.add(results.next());
+      if (keys.size() == DELETE_BATCH_SIZE) {
+        datastore().delete(keys.toArray(new Key[0]));
+        keys.clear();
+      }
+    }
+    if (!keys.isEmpty()) {
+      datastore().delete(keys.toArray(new Key[0]));
+    }
   }
 }
@@ -16,6 +16,7 @@
 
 package io.opencensus.spring.sample.backend;
 
+import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
@@ -32,6 +33,9 @@ public class DatastoreWorkerProperties {
   @NotNull
   private String projectId;
 
+  @Valid
+  private final WorkloadProperties workload = new WorkloadProperties();
+
   public void setEnabled(boolean enabled) {
     this.enabled = enabled;
   }
@@ -47,4 +51,8 @@ public class DatastoreWorkerProperties {
   public String getProjectId() {
     return this.projectId;
   }
+
+  public WorkloadProperties getWorkload() {
+    return this.workload;
+  }
 }
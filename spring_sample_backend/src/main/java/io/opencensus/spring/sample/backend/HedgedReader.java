@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.sample.backend;
+
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.Span;
+import io.opencensus.trace.Tracer;
+import io.opencensus.trace.Tracing;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executes the reads of a {@link BackendWorker}, sending a second (hedged) read when the first
+ * one did not complete within the configured latency percentile of the worker.
+ *
+ * <p>The first read to complete successfully wins. A losing hedged read is interrupted, a losing
+ * primary read runs to completion so its latency is still recorded. The number of hedged reads
+ * is capped by a token bucket refilled by every read, so the extra load never exceeds
+ * {@link HedgingProperties#getBudgetPercent()}.
+ */
+final class HedgedReader {
+
+  private static final Tracer tracer = Tracing.getTracer();
+  // One hedged read costs BUDGET_UNIT tokens, at most MAX_BUDGET_READS can be sent in a burst.
+  private static final long BUDGET_UNIT = 1000;
+  private static final long MAX_BUDGET_READS = 10;
+
+  private final String name;
+  private final HedgingProperties hedgingProperties;
+  private final ExecutorService executor;
+  private final LatencyHistogram histogram;
+  private final AtomicLong budget = new AtomicLong();
+
+  HedgedReader(String name, HedgingProperties hedgingProperties, ExecutorService executor) {
+    this.name = name;
+    this.hedgingProperties = hedgingProperties;
+    this.executor = executor;
+    this.histogram =
+        new LatencyHistogram(TimeUnit.SECONDS.toNanos(hedgingProperties.getWindowSeconds()));
+  }
+
+  /**
+   * Executes the given read, hedging it if enabled.
+   *
+   * @param read the read to execute, must be safe to call concurrently.
+   * @param <T> the type of the result.
+   * @return the result of the first read that completed successfully.
+   */
+  <T> T read(Callable<T> read) {
+    if (!hedgingProperties.isEnabled()) {
+      return callPrimary(read);
+    }
+    long delayMicros =
+        histogram.percentile(hedgingProperties.getPercentile(), hedgingProperties.getMinSamples());
+    deposit();
+    if (delayMicros < 0 || budget.get() < BUDGET_UNIT) {
+      // Not enough samples or no budget to hedge, the read runs on the caller thread.
+      return callPrimary(read);
+    }
+    return hedge(read, delayMicros);
+  }
+
+  private <T> T hedge(Callable<T> read, long delayMicros) {
+    Span span = tracer.getCurrentSpan();
+    CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+    Future<T> primary =
+        completionService.submit(tracer.withSpan(span, () -> callPrimary(read)));
+    Future<T> hedge = null;
+    try {
+      int pending = 1;
+      Future<T> done = completionService.poll(delayMicros, TimeUnit.MICROSECONDS);
+      if (done == null && tryAcquire()) {
+        Map<String, AttributeValue> attributes = new HashMap<>();
+        attributes.put("worker", AttributeValue.stringAttributeValue(name));
+        attributes.put("delay_micros", AttributeValue.longAttributeValue(delayMicros));
+        span.addAnnotation("Hedged read sent.", attributes);
+        hedge = completionService.submit(tracer.withSpan(span, () -> call(read)));
+        pending++;
+      }
+      ExecutionException failure = null;
+      for (; pending > 0; pending--) {
+        if (done == null) {
+          done = completionService.take();
+        }
+        try {
+          T result = done.get();
+          if (done == hedge) {
+            span.addAnnotation("Hedged read won.");
+          }
+          return result;
+        } catch (ExecutionException e) {
+          failure = e;
+          done = null;
+        }
+      }
+      throw propagate(failure.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } finally {
+      // The primary read is not interrupted, so a slow primary read still completes and records
+      // its latency; the hedged read is not recorded and can be interrupted.
+      primary.cancel(false);
+      if (hedge != null) {
+        hedge.cancel(true);
+      }
+    }
+  }
+
+  // Only the latency of the primary reads that completed successfully is recorded: the hedged
+  // reads start late and fast failures (e.g. not found) would pull the percentile down.
+  private <T> T callPrimary(Callable<T> read) {
+    long start = System.nanoTime();
+    T result = call(read);
+    histogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+    return result;
+  }
+
+  private static <T> T call(Callable<T> read) {
+    try {
+      return read.call();
+    } catch (Exception e) {
+      throw propagate(e);
+    }
+  }
+
+  private void deposit() {
+    long tokens = BUDGET_UNIT * hedgingProperties.getBudgetPercent() / 100;
+    long current;
+    do {
+      current = budget.get();
+    } while (!budget.compareAndSet(current,
+        Math.min(MAX_BUDGET_READS * BUDGET_UNIT, current + tokens)));
+  }
+
+  private boolean tryAcquire() {
+    long current;
+    do {
+      current = budget.get();
+      if (current < BUDGET_UNIT) {
+        return false;
+      }
+    } while (!budget.compareAndSet(current, current - BUDGET_UNIT));
+    return true;
+  }
+
+  private static RuntimeException propagate(Throwable t) {
+    if (t instanceof RuntimeException) {
+      return (RuntimeException) t;
+    }
+    if (t instanceof Error) {
+      throw (Error) t;
+    }
+    if (t instanceof IOException) {
+      return new UncheckedIOException((IOException) t);
+    }
+    return new RuntimeException(t);
+  }
+}
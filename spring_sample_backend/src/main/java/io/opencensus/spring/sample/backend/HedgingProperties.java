@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.sample.backend;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * {@link ReadHedging} properties.
+ */
+@ConfigurationProperties("spring.opencensus.sample.backend.hedging")
+@Validated
+public class HedgingProperties {
+
+  private boolean enabled = false;
+
+  @DecimalMin("50.0")
+  @DecimalMax("99.99")
+  private double percentile = 95.0;
+
+  @Min(0)
+  @Max(100)
+  private int budgetPercent = 10;
+
+  @Min(1)
+  private long minSamples = 100;
+
+  @Min(1)
+  private long windowSeconds = 30;
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  public void setPercentile(double percentile) {
+    this.percentile = percentile;
+  }
+
+  /**
+   * Returns the latency percentile of the worker after which a hedged read is sent.
+   */
+  public double getPercentile() {
+    return this.percentile;
+  }
+
+  public void setBudgetPercent(int budgetPercent) {
+    this.budgetPercent = budgetPercent;
+  }
+
+  /**
+   * Returns the maximum extra load, as a percentage of the reads, allowed for hedged reads.
+   */
+  public int getBudgetPercent() {
+    return this.budgetPercent;
+  }
+
+  public void setMinSamples(long minSamples) {
+    this.minSamples = minSamples;
+  }
+
+  /**
+   * Returns the number of latency samples required before the reads start being hedged.
+   */
+  public long getMinSamples() {
+    return this.minSamples;
+  }
+
+  public void setWindowSeconds(long windowSeconds) {
+    this.windowSeconds = windowSeconds;
+  }
+
+  /**
+   * Returns the length of the rolling window used to track the worker latency.
+   */
+  public long getWindowSeconds() {
+    return this.windowSeconds;
+  }
+}
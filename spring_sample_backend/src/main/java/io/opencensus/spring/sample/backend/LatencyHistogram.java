@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.sample.backend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free rolling latency histogram with exponential buckets (~20% relative error).
+ *
+ * <p>Samples are recorded in the current window; percentiles are computed over the current and
+ * the previous window. Samples recorded while the windows are rotated may be lost, which is fine
+ * for the purpose of estimating a percentile.
+ */
+final class LatencyHistogram {
+
+  private static final long MIN_BOUND_MICROS = 50;
+  private static final long MAX_BOUND_MICROS = 60_000_000;
+  // Upper bounds (inclusive) of the buckets in microseconds, the last bucket is unbounded.
+  private static final long[] BOUNDS;
+
+  static {
+    List<Long> bounds = new ArrayList<>();
+    for (long bound = MIN_BOUND_MICROS; bound < MAX_BOUND_MICROS; bound += bound / 5) {
+      bounds.add(bound);
+    }
+    bounds.add(Long.MAX_VALUE);
+    BOUNDS = new long[bounds.size()];
+    for (int i = 0; i < BOUNDS.length; i++) {
+      BOUNDS[i] = bounds.get(i);
+    }
+  }
+
+  private final long windowNanos;
+  private final AtomicLong windowStart;
+  private volatile AtomicLongArray current = new AtomicLongArray(BOUNDS.length);
+  private volatile AtomicLongArray previous = new AtomicLongArray(BOUNDS.length);
+
+  LatencyHistogram(long windowNanos) {
+    this.windowNanos = windowNanos;
+    this.windowStart = new AtomicLong(System.nanoTime());
+  }
+
+  /**
+   * Records a latency sample.
+   *
+   * @param micros the latency in microseconds.
+   */
+  void record(long micros) {
+    maybeRotate();
+    current.incrementAndGet(bucketIndex(micros));
+  }
+
+  /**
+   * Returns the upper bound of the bucket that contains the given percentile, or {@code -1} if
+   * fewer than {@code minSamples} samples were recorded in the last two windows.
+   *
+   * @param percentile the percentile, between 0 and 100.
+   * @param minSamples the minimum number of samples required for a meaningful estimate.
+   * @return the estimated percentile in microseconds, or {@code -1}.
+   */
+  long percentile(double percentile, long minSamples) {
+    maybeRotate();
+    AtomicLongArray current = this.current;
+    AtomicLongArray previous = this.previous;
+    long total = 0;
+    for (int i = 0; i < BOUNDS.length; i++) {
+      total += current.get(i) + previous.get(i);
+    }
+    if (total == 0 || total < minSamples) {
+      return -1;
+    }
+    long rank = (long) Math.ceil(total * percentile / 100);
+    long count = 0;
+    for (int i = 0; i < BOUNDS.length - 1; i++) {
+      count += current.get(i) + previous.get(i);
+      if (count >= rank) {
+        return BOUNDS[i];
+      }
+    }
+    return BOUNDS[BOUNDS.length - 2];
+  }
+
+  private void maybeRotate() {
+    long now = System.nanoTime();
+    long start = windowStart.get();
+    if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+      previous = current;
+      current = new AtomicLongArray(BOUNDS.length);
+    }
+  }
+
+  private static int bucketIndex(long micros) {
+    int index = Arrays.binarySearch(BOUNDS, micros);
+    return index >= 0 ? index : -(index + 1);
+  }
+}
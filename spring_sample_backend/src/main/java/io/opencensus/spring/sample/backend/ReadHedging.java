@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.sample.backend;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the {@link HedgedReader} of every {@link BackendWorker} and the threads used to execute
+ * the hedged reads.
+ */
+@Component
+final class ReadHedging implements DisposableBean {
+
+  private final AtomicInteger threadCount = new AtomicInteger();
+  private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "hedged-read-" + threadCount.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final ConcurrentMap<String, HedgedReader> readers = new ConcurrentHashMap<>();
+
+  @Autowired
+  private HedgingProperties hedgingProperties;
+
+  ReadHedging() {
+  }
+
+  /**
+   * Returns the {@code HedgedReader} of the worker with the given name.
+   *
+   * @param name the name of the worker.
+   * @return the {@code HedgedReader} of the worker with the given name.
+   */
+  HedgedReader forWorker(String name) {
+    return readers.computeIfAbsent(name,
+        key -> new HedgedReader(key, hedgingProperties, executor));
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+}
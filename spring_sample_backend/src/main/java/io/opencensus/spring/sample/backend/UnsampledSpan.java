@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.sample.backend;
+
+import io.opencensus.trace.Annotation;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.EndSpanOptions;
+import io.opencensus.trace.Link;
+import io.opencensus.trace.Span;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.TraceOptions;
+import java.util.Map;
+
+/**
+ * A {@link Span} that is not sampled, with the same identifiers as its parent. While it is the
+ * current span, the spans started by the client libraries (e.g. for every RPC) are not sampled, so
+ * they are not exported. Annotations, attributes and links are forwarded to the parent span.
+ */
+final class UnsampledSpan extends Span {
+
+  private final Span parent;
+
+  private UnsampledSpan(Span parent, SpanContext context) {
+    super(context, null);
+    this.parent = parent;
+  }
+
+  /**
+   * Returns an {@code UnsampledSpan} with the same identifiers as the given span.
+   */
+  static UnsampledSpan of(Span parent) {
+    SpanContext context = parent.getContext();
+    return new UnsampledSpan(parent,
+        SpanContext.create(context.getTraceId(), context.getSpanId(), TraceOptions.DEFAULT));
+  }
+
+  @Override
+  public void addAnnotation(String description, Map<String, AttributeValue> attributes) {
+    parent.addAnnotation(description, attributes);
+  }
+
+  @Override
+  public void addAnnotation(Annotation annotation) {
+    parent.addAnnotation(annotation);
+  }
+
+  @Override
+  public void putAttribute(String key, AttributeValue value) {
+    parent.putAttribute(key, value);
+  }
+
+  @Override
+  public void putAttributes(Map<String, AttributeValue> attributes) {
+    parent.putAttributes(attributes);
+  }
+
+  @Override
+  public void addLink(Link link) {
+    parent.addLink(link);
+  }
+
+  @Override
+  public void end(EndSpanOptions options) {
+    // The parent span is ended by its owner.
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.sample.backend;
+
+import javax.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * {@link BackendWarmup} properties.
+ */
+@ConfigurationProperties("spring.opencensus.sample.backend.warmup")
+@Validated
+public class WarmupProperties {
+
+  @Min(0)
+  private int iterations = 3;
+
+  public void setIterations(int iterations) {
+    this.iterations = iterations;
+  }
+
+  /**
+   * Returns the number of times the read path of every worker is exercised before the Backend
+   * reports ready, {@code 0} disables the warm-up.
+   */
+  public int getIterations() {
+    return this.iterations;
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.sample.backend;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process, lock-free aggregation of the worker latencies of every {@link Backend} endpoint.
+ *
+ * <p>For every endpoint and worker it keeps the number of calls, the number of requests in which
+ * the worker was the slowest one (dominated the request) and a rolling {@link LatencyHistogram}.
+ */
+@Component
+final class WorkerProfiler {
+
+  private static final double[] PERCENTILES = {50, 90, 99};
+
+  private final ConcurrentMap<String, ConcurrentMap<Class<?>, WorkerStats>> endpoints =
+      new ConcurrentHashMap<>();
+
+  @Autowired
+  private ProfileProperties profileProperties;
+
+  WorkerProfiler() {
+  }
+
+  boolean isEnabled() {
+    return profileProperties.isEnabled();
+  }
+
+  /**
+   * Records the latency of a worker call.
+   *
+   * @param endpoint the endpoint that called the worker.
+   * @param worker the worker.
+   * @param nanos the latency of the call in nanoseconds.
+   */
+  void record(String endpoint, BackendWorker worker, long nanos) {
+    WorkerStats stats = getStats(endpoint, worker);
+    stats.calls.increment();
+    stats.histogram.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+  }
+
+  /**
+   * Records the worker that dominated a request.
+   *
+   * @param endpoint the endpoint that received the request.
+   * @param worker the slowest worker of the request.
+   */
+  void recordDominant(String endpoint, BackendWorker worker) {
+    getStats(endpoint, worker).dominant.increment();
+  }
+
+  /**
+   * Returns a plain text summary of the recorded latencies.
+   */
+  String render() {
+    StringBuilder builder = new StringBuilder();
+    builder.append(String.format("%-10s %-20s %10s %10s %10s %10s %10s%n", "endpoint", "worker",
+        "calls", "dominant", "p50(ms)", "p90(ms)", "p99(ms)"));
+    for (Map.Entry<String, ConcurrentMap<Class<?>, WorkerStats>> endpoint : endpoints.entrySet()) {
+      for (WorkerStats stats : endpoint.getValue().values()) {
+        builder.append(String.format("%-10s %-20s %10d %10d", endpoint.getKey(), stats.name,
+            stats.calls.sum(), stats.dominant.sum()));
+        for (double percentile : PERCENTILES) {
+          long micros = stats.histogram.percentile(percentile, 1);
+          builder.append(micros < 0 ? String.format(" %10s", "-")
+              : String.format(" %10.1f", micros / 1000.0));
+        }
+        builder.append(System.lineSeparator());
+      }
+    }
+    return builder.toString();
+  }
+
+  private WorkerStats getStats(String endpoint, BackendWorker worker) {
+    ConcurrentMap<Class<?>, WorkerStats> workers = endpoints.get(endpoint);
+    if (workers == null) {
+      workers = endpoints.computeIfAbsent(endpoint, key -> new ConcurrentHashMap<>());
+    }
+    WorkerStats stats = workers.get(worker.getClass());
+    if (stats == null) {
+      stats = workers.computeIfAbsent(worker.getClass(), key -> new WorkerStats(
+          key.getSimpleName(), TimeUnit.SECONDS.toNanos(profileProperties.getWindowSeconds())));
+    }
+    return stats;
+  }
+
+  private static final class WorkerStats {
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder dominant = new LongAdder();
+    private final LatencyHistogram histogram;
+
+    private WorkerStats(String name, long windowNanos) {
+      this.name = name;
+      this.histogram = new LatencyHistogram(windowNanos);
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.sample.backend;
+
+import io.opencensus.spring.sample.backend.WorkloadProperties.KeyDistribution;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates the operations, keys and values of a {@link BackendWorker} request according to the
+ * {@link WorkloadProperties}.
+ *
+ * <p>All the state is computed once, generating an operation only allocates the key and the value
+ * that are handed to the client libraries. The Zipfian generator follows "Quickly Generating
+ * Billion-Record Synthetic Databases" (Gray et al.), as used by YCSB.
+ */
+final class Workload {
+
+  private static final char[] PAYLOAD_CHARS =
+      "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+
+  private final String keyPrefix;
+  private final int keySpace;
+  private final KeyDistribution keyDistribution;
+  private final double readRatio;
+  private final int operationsPerRequest;
+  private final int minValueSize;
+  private final int maxValueSize;
+  // Values are prefixes of this payload.
+  private final byte[] payload;
+
+  // Zipfian constants.
+  private final double theta;
+  private final double zetan;
+  private final double alpha;
+  private final double eta;
+
+  Workload(String keyPrefix, WorkloadProperties properties) {
+    this.keyPrefix = keyPrefix;
+    this.keySpace = properties.getKeySpace();
+    this.keyDistribution = properties.getKeyDistribution();
+    this.readRatio = properties.getReadRatio();
+    this.operationsPerRequest = properties.getOperationsPerRequest();
+    this.minValueSize = Math.min(properties.getMinValueSize(), properties.getMaxValueSize());
+    this.maxValueSize = Math.max(properties.getMinValueSize(), properties.getMaxValueSize());
+
+    this.payload = new byte[maxValueSize];
+    Random random = new Random(keyPrefix.hashCode());
+    for (int i = 0; i < payload.length; i++) {
+      payload[i] = (byte) PAYLOAD_CHARS[random.nextInt(PAYLOAD_CHARS.length)];
+    }
+
+    this.theta = properties.getZipfianTheta();
+    if (keyDistribution == KeyDistribution.ZIPFIAN) {
+      double zetan = 0;
+      for (int i = 1; i <= keySpace; i++) {
+        zetan += 1 / Math.pow(i, theta);
+      }
+      double zeta2 = 1 + 1 / Math.pow(2, theta);
+      this.zetan = zetan;
+      this.alpha = 1 / (1 - theta);
+      this.eta = (1 - Math.pow(2.0 / keySpace, 1 - theta)) / (1 - zeta2 / zetan);
+    } else {
+      this.zetan = 0;
+      this.alpha = 0;
+      this.eta = 0;
+    }
+  }
+
+  int getOperationsPerRequest() {
+    return operationsPerRequest;
+  }
+
+  /**
+   * Returns {@code true} if the next operation is a read, {@code false} if it is a write.
+   */
+  boolean nextIsRead() {
+    return ThreadLocalRandom.current().nextDouble() < readRatio;
+  }
+
+  /**
+   * Returns the next key to access.
+   */
+  String nextKey() {
+    return key(nextKeyIndex());
+  }
+
+  /**
+   * Returns the key with the given index, between {@code 0} and the key space.
+   */
+  String key(int index) {
+    return keyPrefix + index;
+  }
+
+  /**
+   * Returns a new value to write.
+   */
+  byte[] nextValue() {
+    int size = minValueSize == maxValueSize ? maxValueSize
+        : minValueSize + ThreadLocalRandom.current().nextInt(maxValueSize - minValueSize + 1);
+    return Arrays.copyOf(payload, size);
+  }
+
+  private int nextKeyIndex() {
+    if (keySpace == 1) {
+      return 0;
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    if (keyDistribution == KeyDistribution.UNIFORM) {
+      return random.nextInt(keySpace);
+    }
+    double u = random.nextDouble();
+    double uz = u * zetan;
+    if (uz < 1) {
+      return 0;
+    }
+    if (uz < 1 + Math.pow(0.5, theta)) {
+      return 1;
+    }
+    return Math.min(keySpace - 1, (int) (keySpace * Math.pow(eta * u - eta + 1, alpha)));
+  }
+}
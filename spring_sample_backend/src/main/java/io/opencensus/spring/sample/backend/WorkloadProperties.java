@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.spring.sample.backend;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * {@link Workload} properties, nested in the properties of every {@link BackendWorker}.
+ */
+public class WorkloadProperties {
+
+  @Min(1)
+  private int keySpace = 1;
+
+  @NotNull
+  private KeyDistribution keyDistribution = KeyDistribution.UNIFORM;
+
+  @DecimalMin("0.01")
+  @DecimalMax("0.99")
+  private double zipfianTheta = 0.99;
+
+  @DecimalMin("0.0")
+  @DecimalMax("1.0")
+  private double readRatio = 0.5;
+
+  @Min(1)
+  private int operationsPerRequest = 2;
+
+  @Min(0)
+  private int minValueSize = 16;
+
+  @Min(0)
+  private int maxValueSize = 16;
+
+  public void setKeySpace(int keySpace) {
+    this.keySpace = keySpace;
+  }
+
+  /**
+   * Returns the number of distinct keys used by the worker.
+   */
+  public int getKeySpace() {
+    return this.keySpace;
+  }
+
+  public void setKeyDistribution(KeyDistribution keyDistribution) {
+    this.keyDistribution = keyDistribution;
+  }
+
+  public KeyDistribution getKeyDistribution() {
+    return this.keyDistribution;
+  }
+
+  public void setZipfianTheta(double zipfianTheta) {
+    this.zipfianTheta = zipfianTheta;
+  }
+
+  /**
+   * Returns the skew of the {@link KeyDistribution#ZIPFIAN} distribution, higher is more skewed.
+   */
+  public double getZipfianTheta() {
+    return this.zipfianTheta;
+  }
+
+  public void setReadRatio(double readRatio) {
+    this.readRatio = readRatio;
+  }
+
+  /**
+   * Returns the fraction of the operations that are reads, the others are writes.
+   */
+  public double getReadRatio() {
+    return this.readRatio;
+  }
+
+  public void setOperationsPerRequest(int operationsPerRequest) {
+    this.operationsPerRequest = operationsPerRequest;
+  }
+
+  public int getOperationsPerRequest() {
+    return this.operationsPerRequest;
+  }
+
+  public void setMinValueSize(int minValueSize) {
+    this.minValueSize = minValueSize;
+  }
+
+  /**
+   * Returns the minimum size in bytes of the written values, sizes are uniformly distributed.
+   */
+  public int getMinValueSize() {
+    return this.minValueSize;
+  }
+
+  public void setMaxValueSize(int maxValueSize) {
+    this.maxValueSize = maxValueSize;
+  }
+
+  /**
+   * Returns the maximum size in bytes of the written values, sizes are uniformly distributed.
+   */
+  public int getMaxValueSize() {
+    return this.maxValueSize;
+  }
+
+  /**
+   * Distribution of the keys accessed by the operations.
+   */
+  public enum KeyDistribution {
+    /**
+     * Every key is equally likely to be accessed.
+     */
+    UNIFORM,
+    /**
+     * A few keys are accessed most of the time.
+     */
+    ZIPFIAN
+  }
+}